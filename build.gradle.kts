@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.tonic.vitawintertodt"
@@ -26,6 +27,49 @@ dependencies {
     annotationProcessor("org.projectlombok:lombok:1.18.24")
 }
 
+// Headless Wintertodt simulator, runs the real handlers against a modelled game.
+val sim: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[sim.implementationConfigurationName].extendsFrom(configurations.compileOnly.get())
+configurations[sim.annotationProcessorConfigurationName].extendsFrom(configurations.annotationProcessor.get())
+
+tasks.register<JavaExec>("simulate") {
+    description = "Run the headless Wintertodt simulator, pass options with -Pargs=\"--seed=1 --rounds=100\""
+    group = "verification"
+
+    classpath = sim.runtimeClasspath
+    mainClass.set("com.tonic.vitawintertodt.sim.Simulator")
+    args = (project.findProperty("args") as String?)?.split(" ") ?: emptyList()
+}
+
+tasks.register<JavaExec>("replay") {
+    description = "Replay a recorded session journal, pass options with -Pargs=\"--journal=path/to/journal.wtj\""
+    group = "verification"
+
+    classpath = sim.runtimeClasspath
+    mainClass.set("com.tonic.vitawintertodt.sim.Replay")
+    args = (project.findProperty("args") as String?)?.split(" ") ?: emptyList()
+}
+
+// JMH benchmarks for the per tick hot paths, run against the simulator's game stubs.
+dependencies {
+    jmhImplementation(sim.output)
+}
+
+configurations["jmhImplementation"].extendsFrom(configurations.compileOnly.get())
+configurations["jmhAnnotationProcessor"].extendsFrom(configurations.annotationProcessor.get())
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+}
+
 tasks.build {
     finalizedBy("deployToRuneLite")
 }
@@ -0,0 +1,125 @@
+package com.tonic.vitawintertodt.bench;
+
+import com.tonic.vitawintertodt.api.ItemCounts;
+import com.tonic.vitawintertodt.api.StepTable;
+import com.tonic.vitawintertodt.api.WinterAPI;
+import com.tonic.vitawintertodt.api.WinterStatus;
+import com.tonic.vitawintertodt.data.BrazierState;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.State;
+import com.tonic.vitawintertodt.data.Strategy;
+import com.tonic.vitawintertodt.sim.SimulatedWintertodt;
+import net.runelite.api.Item;
+import net.runelite.api.gameval.InventoryID;
+import net.runelite.api.gameval.ItemID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the individual lookups the handlers make every tick, run against
+ * {@link SimulatedWintertodt} so no client is needed.
+ * <p>
+ * Usage: {@code ./gradlew jmh}, the gc profiler is enabled in the build so every
+ * result also reports the bytes allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+public class HotPathBenchmark
+{
+    @Param({"EAST", "WEST"})
+    public Position position;
+
+    private String[] warmthTexts;
+    private int warmthIndex;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        new SimulatedWintertodt(1, 20).install();
+        ItemCounts.onItemsChanged(InventoryID.BANK, new Item[] {
+                new Item(ItemID.BRONZE_AXE, 1),
+                new Item(ItemID.STEEL_AXE, 1),
+                new Item(ItemID.RUNE_AXE, 1),
+                new Item(ItemID.KNIFE, 3),
+                new Item(ItemID.TINDERBOX, 2)
+        });
+        warmthTexts = new String[] {"Warmth: 80%", "Warmth: 79%"};
+        WinterStatus.onWidgetText(warmthTexts[0], "Wintertodt's Energy: 100%");
+        State.recalc(position, Strategy.POINTS);
+    }
+
+    @Benchmark
+    public BrazierState brazierState()
+    {
+        return BrazierState.getState(position);
+    }
+
+    @Benchmark
+    public int warmth()
+    {
+        return WinterAPI.getWarmth();
+    }
+
+    /**
+     * The per tick widget refresh when the warmth text is unchanged, which is most ticks.
+     */
+    @Benchmark
+    public int warmthRefreshUnchanged()
+    {
+        WinterStatus.onWidgetText(warmthTexts[0], "Wintertodt's Energy: 100%");
+        return WinterAPI.getWarmth();
+    }
+
+    /**
+     * The per tick widget refresh when the warmth text has changed and must be reparsed.
+     */
+    @Benchmark
+    public int warmthRefreshChanged()
+    {
+        warmthIndex ^= 1;
+        WinterStatus.onWidgetText(warmthTexts[warmthIndex], "Wintertodt's Energy: 100%");
+        return WinterAPI.getWarmth();
+    }
+
+    @Benchmark
+    public int decideBestAxe()
+    {
+        return WinterAPI.decideBestAxe();
+    }
+
+    @Benchmark
+    public Position selectNew()
+    {
+        return Position.selectNew(position);
+    }
+
+    /**
+     * Selects and resets the cached handlers of every state, done at the start of each round.
+     */
+    @Benchmark
+    public Object recalc()
+    {
+        State.recalc(position, Strategy.POINTS);
+        return State.GAME.getHandler();
+    }
+
+    /**
+     * Resets the prep table in place and dispatches its first step.
+     */
+    @Benchmark
+    public boolean dispatchPrep()
+    {
+        StepTable prep = State.PREP.getHandler();
+        prep.reset();
+        return prep.step();
+    }
+}
@@ -0,0 +1,70 @@
+package com.tonic.vitawintertodt.bench;
+
+import com.tonic.vitawintertodt.WinterSession;
+import com.tonic.vitawintertodt.api.Signals;
+import com.tonic.vitawintertodt.data.State;
+import com.tonic.vitawintertodt.sim.SimulatedWintertodt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the plugin side of one game tick, everything the plugin's onGameTick
+ * does, while the session is in the given state. The simulated world is advanced
+ * in the invocation setup so only the plugin's own work is measured.
+ * <p>
+ * START is not covered, its handler banks through the live client's bank widgets
+ * which the simulator does not model.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+public class TickDispatchBenchmark
+{
+    @Param({"PREP", "GAME"})
+    public State state;
+
+    private SimulatedWintertodt world;
+    private WinterSession session;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        world = new SimulatedWintertodt(1, 20);
+        world.install();
+        session = new WinterSession();
+        session.reset();
+        session.newRound(State.PREP);
+    }
+
+    /**
+     * Advances the world to the next tick the session spends in the benchmarked
+     * state, playing through any ticks spent in other states.
+     */
+    @Setup(Level.Invocation)
+    public void advance()
+    {
+        world.tick();
+        while(session.getState() != state)
+        {
+            Signals.onTick();
+            session.tick(true);
+            world.tick();
+        }
+    }
+
+    @Benchmark
+    public State tick()
+    {
+        Signals.onTick();
+        session.tick(true);
+        return session.getState();
+    }
+}
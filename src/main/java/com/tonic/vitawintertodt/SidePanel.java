@@ -2,12 +2,23 @@ package com.tonic.vitawintertodt;
 
 import com.tonic.model.ui.components.FancyButton;
 import com.tonic.model.ui.components.FancyCard;
+import com.tonic.vitawintertodt.api.Planner;
+import com.tonic.vitawintertodt.api.StrategyMetrics;
+import com.tonic.vitawintertodt.api.TickBudget;
+import com.tonic.vitawintertodt.api.TickMetrics;
+import com.tonic.vitawintertodt.api.WinterAPI;
+import com.tonic.vitawintertodt.data.Strategy;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.PluginPanel;
 
 import javax.inject.Inject;
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 
 /**
  * The side panel for the Wintertodt plugin.
@@ -15,6 +26,9 @@ import java.awt.*;
 public class SidePanel extends PluginPanel
 {
     private final JButton startStopButton;
+    private final JTextArea metricsArea;
+    private final JTextArea ratesArea;
+    private final Timer refreshTimer = new Timer(1000, e -> refreshMetrics());
     private boolean isRunning = false;
 
     @Inject
@@ -44,6 +58,148 @@ public class SidePanel extends PluginPanel
         });
 
         add(startStopButton, c);
+        c.gridy++;
+
+        JComboBox<Strategy> strategyBox = new JComboBox<>(Strategy.values());
+        strategyBox.setSelectedItem(WinterAPI.getStrategy());
+        strategyBox.setFocusable(false);
+        strategyBox.setToolTipText("What to optimise for, takes effect from the next round");
+        strategyBox.addActionListener(e -> WinterAPI.setStrategy((Strategy) strategyBox.getSelectedItem()));
+        add(strategyBox, c);
+        c.gridy++;
+
+        ratesArea = metricsArea();
+        add(ratesArea, c);
+        c.gridy++;
+
+        metricsArea = metricsArea();
+        add(metricsArea, c);
+        c.gridy++;
+
+        JPanel metricsButtons = new JPanel(new GridLayout(1, 2, 5, 0));
+        metricsButtons.setOpaque(false);
+        JButton exportButton = new FancyButton("Export CSV");
+        exportButton.setFocusable(false);
+        exportButton.addActionListener(e -> exportMetrics());
+        metricsButtons.add(exportButton);
+        JButton resetButton = new FancyButton("Reset");
+        resetButton.setFocusable(false);
+        resetButton.addActionListener(e -> {
+            TickMetrics.reset();
+            StrategyMetrics.reset();
+            TickBudget.reset();
+            refreshMetrics();
+        });
+        metricsButtons.add(resetButton);
+        add(metricsButtons, c);
+
+        refreshMetrics();
+    }
+
+    /**
+     * Starts redrawing the metrics every second, called when the plugin starts.
+     */
+    public void startRefreshing()
+    {
+        refreshTimer.start();
+    }
+
+    /**
+     * Stops redrawing the metrics, called when the plugin stops so the timer does not
+     * keep the panel alive.
+     */
+    public void stopRefreshing()
+    {
+        refreshTimer.stop();
+    }
+
+    private static JTextArea metricsArea()
+    {
+        JTextArea area = new JTextArea();
+        area.setEditable(false);
+        area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 10));
+        area.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        area.setForeground(Color.WHITE);
+        return area;
+    }
+
+    /**
+     * Redraws the strategy rates, one line per played strategy with the hourly rate of
+     * every objective, and the tick latency table, one line per step with its tick count
+     * and p50/p99/max latencies in microseconds, or milliseconds where marked.
+     */
+    private void refreshMetrics()
+    {
+        StringBuilder rates = new StringBuilder(String.format("%-9s%9s%9s%9s", "per hour", "points", "fm xp", "fl xp"));
+        for(StrategyMetrics.Row row : StrategyMetrics.snapshot())
+        {
+            rates.append('\n').append(String.format("%-9.9s%9d%9d%9d",
+                    row.getStrategy().getDisplayName(),
+                    row.getRate(Strategy.POINTS),
+                    row.getRate(Strategy.FIREMAKING),
+                    row.getRate(Strategy.FLETCHING)
+            ));
+        }
+        ratesArea.setText(rates.toString());
+
+        StringBuilder text = new StringBuilder(String.format("%-13s%6s%5s%5s%6s", "step", "ticks", "p50", "p99", "max"));
+        String state = null;
+        for(TickMetrics.Row row : TickMetrics.snapshot())
+        {
+            if(!row.getState().equals(state))
+            {
+                state = row.getState();
+                text.append('\n').append(state);
+            }
+            text.append('\n').append(String.format("%-13.13s%6d%5s%5s%6s",
+                    " " + row.getStep(),
+                    row.getTicks(),
+                    micros(row.getP50()),
+                    micros(row.getP99()),
+                    micros(row.getMax())
+            ));
+        }
+        text.append('\n').append(String.format("over %dms %d/%d ticks, max %s, queued %d",
+                TickBudget.BUDGET_NANOS / 1_000_000,
+                TickBudget.getOverBudget(),
+                TickBudget.getTicks(),
+                micros(TickBudget.getSlowest()),
+                TickBudget.getBacklog()
+        ));
+        text.append('\n').append(String.format("plans %d, over budget %d",
+                Planner.getPlans(),
+                Planner.getOverBudget()
+        ));
+        metricsArea.setText(text.toString());
+    }
+
+    private void exportMetrics()
+    {
+        List<TickMetrics.Row> rows = TickMetrics.snapshot();
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("wintertodt-ticks.csv"));
+        if(chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+        {
+            return;
+        }
+        try
+        {
+            Files.write(chooser.getSelectedFile().toPath(), TickMetrics.toCsv(rows).getBytes(StandardCharsets.UTF_8));
+        }
+        catch(IOException ex)
+        {
+            JOptionPane.showMessageDialog(this, "Export failed: " + ex.getMessage(), "Wintertodt", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Formats a latency in microseconds, switching to milliseconds from 10ms so it
+     * fits the column.
+     */
+    private static String micros(long nanos)
+    {
+        long micros = nanos / 1000;
+        return micros < 10_000 ? Long.toString(micros) : (micros / 1000) + "ms";
     }
 
     /**
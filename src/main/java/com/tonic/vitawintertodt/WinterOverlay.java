@@ -10,6 +10,9 @@ import java.awt.*;
  * WinterOverlay class.
  */
 public class WinterOverlay extends VitaOverlay {
+    private State shownState;
+    private boolean dirty = true;
+
     public WinterOverlay() {
         super();
         setPosition(OverlayPosition.TOP_CENTER);
@@ -18,12 +21,20 @@ public class WinterOverlay extends VitaOverlay {
     }
 
     /**
-     * Update the overlay based on the current state.
+     * Update the overlay based on the current state. Called every client frame, the
+     * lines are only rebuilt when the displayed values have changed.
      *
      * @param state The current state of the Wintertodt activity.
      */
     public void update(State state)
     {
+        if(!dirty && state == shownState)
+        {
+            return;
+        }
+        dirty = false;
+        shownState = state;
+
         clear();
         if(state == null)
         {
@@ -43,4 +54,12 @@ public class WinterOverlay extends VitaOverlay {
                 break;
         }
     }
+
+    /**
+     * Forces the lines to be rebuilt on the next update.
+     */
+    public void invalidate()
+    {
+        dirty = true;
+    }
 }
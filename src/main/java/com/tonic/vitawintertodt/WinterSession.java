@@ -0,0 +1,167 @@
+package com.tonic.vitawintertodt;
+
+import com.tonic.vitawintertodt.api.ActionTiming;
+import com.tonic.vitawintertodt.api.BrazierWatch;
+import com.tonic.vitawintertodt.api.Planner;
+import com.tonic.vitawintertodt.api.PositionStats;
+import com.tonic.vitawintertodt.api.RootBatch;
+import com.tonic.vitawintertodt.api.StrategyMetrics;
+import com.tonic.vitawintertodt.api.TickMetrics;
+import com.tonic.vitawintertodt.api.WinterAPI;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.State;
+import com.tonic.vitawintertodt.data.Strategy;
+import com.tonic.vitawintertodt.jfr.GameTickEvent;
+import com.tonic.vitawintertodt.jfr.WinterFlight;
+import lombok.Getter;
+
+/**
+ * Drives the Wintertodt state machine one game tick at a time. Kept separate from
+ * the plugin so offline drivers can run the exact same round logic.
+ */
+@Getter
+public class WinterSession
+{
+    private State state;
+    private Position position;
+    private Strategy strategy = Strategy.POINTS;
+
+    /**
+     * Resets the session state, along with the batch sizing and action timings learned
+     * during it so the next session relearns them for its own account and world.
+     */
+    public void reset()
+    {
+        State.PREP.reset();
+        State.GAME.reset();
+        State.START.reset();
+        position = null;
+        StrategyMetrics.pause();
+        PositionStats.discardRound();
+        BrazierWatch.reset();
+        Planner.reset();
+        RootBatch.reset();
+        ActionTiming.reset();
+        setState(null);
+    }
+
+    /**
+     * Starts a new round with the given state.
+     * @param newState The state to start the new round with.
+     */
+    public void newRound(State newState)
+    {
+        position = Position.selectNew(position);
+        BrazierWatch.reset();
+        Planner.reset();
+        strategy = WinterAPI.getStrategy();
+        State.recalc(position, strategy);
+        setState(newState);
+    }
+
+    /**
+     * Continues a round already in progress at the given position and state, used when
+     * replaying a recorded session.
+     * @param resumeState The state to continue in.
+     * @param resumePosition The position to continue at.
+     */
+    public void resume(State resumeState, Position resumePosition)
+    {
+        position = resumePosition;
+        strategy = WinterAPI.getStrategy();
+        State.recalc(position, strategy);
+        setState(resumeState);
+    }
+
+    /**
+     * Executes a single game tick.
+     * @param running Whether the bot should be running.
+     */
+    public void tick(boolean running)
+    {
+        GameTickEvent event = WinterFlight.beginTick();
+        dispatch(running);
+        WinterFlight.commit(event);
+    }
+
+    private void dispatch(boolean running)
+    {
+        // Shutdown if stopped and still running
+        if(!running && state != null)
+        {
+            reset();
+            return;
+        }
+
+        // Start new round if started but not yet running
+        if(running && state == null)
+        {
+            newRound(State.START);
+        }
+
+        if(state == null)
+        {
+            return;
+        }
+        StrategyMetrics.onTick(strategy, WinterAPI.getGame());
+        PositionStats.onTick(state, position);
+
+        // Stay ALIVE
+        long start = System.nanoTime();
+        boolean drinking = WinterAPI.handleWarmth();
+        TickMetrics.recordWarmth(System.nanoTime() - start);
+        if(drinking)
+        {
+            return;
+        }
+
+        // Transition to prep when round ends
+        if(WinterAPI.getTimer() != 0 && state == State.GAME)
+        {
+            PositionStats.endRound();
+            newRound(State.PREP);
+        }
+
+        // Move to a lit brazier if ours stays down
+        if(state == State.GAME)
+        {
+            Planner.onTick(position);
+            Position next = BrazierWatch.check(position);
+            if(next != null)
+            {
+                reassign(next);
+            }
+        }
+
+        // Execute current state and transition if needed
+        start = System.nanoTime();
+        boolean stepping = state.getHandler().step();
+        TickMetrics.recordStep(state, System.nanoTime() - start);
+        if(!stepping)
+        {
+            state.reset();
+            setState(State.transition(state));
+        }
+    }
+
+    /**
+     * Moves to another brazier mid-round and selects the handlers for it. The gameplay
+     * loop restarts there, resuming with converting the fuel if any is held.
+     * @param next The position to move to.
+     */
+    private void reassign(Position next)
+    {
+        // Same state, only retags the flight recorder events with the new position
+        WinterFlight.transition(state, state, next);
+        position = next;
+        State.recalc(position, strategy);
+        TickMetrics.transition();
+    }
+
+    private void setState(State next)
+    {
+        TickMetrics.transition();
+        WinterFlight.transition(state, next, position);
+        state = next;
+    }
+}
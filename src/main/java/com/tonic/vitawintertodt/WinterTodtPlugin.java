@@ -1,11 +1,36 @@
 package com.tonic.vitawintertodt;
 
+import com.tonic.vitawintertodt.api.ActionGovernor;
+import com.tonic.vitawintertodt.api.ItemCounts;
+import com.tonic.vitawintertodt.api.LiveGame;
+import com.tonic.vitawintertodt.api.PathCache;
+import com.tonic.vitawintertodt.api.Planner;
+import com.tonic.vitawintertodt.api.PositionStats;
+import com.tonic.vitawintertodt.api.RecordingGame;
+import com.tonic.vitawintertodt.api.SceneIndex;
+import com.tonic.vitawintertodt.api.SessionJournal;
+import com.tonic.vitawintertodt.api.Signals;
+import com.tonic.vitawintertodt.api.TickBudget;
 import com.tonic.vitawintertodt.api.WinterAPI;
-import com.tonic.vitawintertodt.data.Position;
-import com.tonic.vitawintertodt.data.State;
+import com.tonic.vitawintertodt.api.WinterStatus;
+import com.tonic.vitawintertodt.data.Signal;
 import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Player;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.AnimationChanged;
 import net.runelite.api.events.ClientTick;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameObjectSpawned;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
+import net.runelite.api.events.HitsplatApplied;
+import net.runelite.api.events.InteractingChanged;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.StatChanged;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
@@ -14,6 +39,9 @@ import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.util.ImageUtil;
 import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 
 @PluginDescriptor(
         name = "Vita Auto Wintertodt",
@@ -22,6 +50,16 @@ import javax.inject.Inject;
 )
 public class WinterTodtPlugin extends Plugin
 {
+    private static final Path JOURNAL_DIRECTORY = new File(RuneLite.RUNELITE_DIR, "vitawintertodt").toPath();
+    private static final int JOURNAL_CAPACITY = 1 << 16;
+    private static final int JOURNALS_KEPT = 10;
+    private static final Path POSITION_STORE = JOURNAL_DIRECTORY.resolve("positions.dat");
+    private static final Path COLLISION_STORE = JOURNAL_DIRECTORY.resolve("collision.dat");
+
+    @Inject
+    private Client client;
+    @Inject
+    private ClientThread clientThread;
     @Inject
     private ClientToolbar clientToolbar;
     @Inject
@@ -30,8 +68,16 @@ public class WinterTodtPlugin extends Plugin
     private WinterOverlay overlay;
     private SidePanel panel;
     private NavigationButton navButton;
-    private State state;
-    private Position position;
+    private final WinterSession session = new WinterSession();
+    private WorldPoint lastTile;
+    private boolean moving;
+    private RecordingGame game;
+    private SessionJournal journal;
+    private SessionJournal spareJournal;
+    private boolean journaling;
+    private final TickBudget.Task saveStats = new TickBudget.Task(this::savePositionStats);
+    private final TickBudget.Task prepareJournal = new TickBudget.Task(this::prepareJournal);
+    private final TickBudget.Task saveCollision = new TickBudget.Task(this::saveCollision);
 
     @Override
     protected void startUp()
@@ -44,81 +90,324 @@ public class WinterTodtPlugin extends Plugin
                 .panel(panel)
                 .build();
 
+        game = new RecordingGame(new ActionGovernor(new LiveGame()));
+        WinterAPI.setGame(game);
+        loadPositionStats();
+        Planner.start();
+
         clientToolbar.addNavigation(navButton);
+        panel.startRefreshing();
+        overlay.invalidate();
         overlayManager.add(overlay);
-        reset();
+        clientThread.invokeLater(() -> {
+            journaling = true;
+            SceneIndex.rebuild(client);
+            ItemCounts.rebuild(client);
+            WinterStatus.rebuild();
+            PositionStats.setWorld(client.getWorld());
+            rebuildPaths();
+        });
+        session.reset();
     }
 
     @Override
     protected void shutDown()
     {
         clientToolbar.removeNavigation(navButton);
+        panel.stopRefreshing();
         overlayManager.remove(overlay);
-        reset();
+        SceneIndex.clear();
+        ItemCounts.clear();
+        WinterStatus.clear();
+        session.reset();
+        Planner.stop();
+        clientThread.invoke(() -> {
+            // Only the saves and closing full journals are left to run, not a new journal
+            journaling = false;
+            TickBudget.drop(prepareJournal);
+            TickBudget.flush();
+            closeJournal();
+            savePositionStats();
+            PathCache.clear();
+        });
     }
 
     /**
-     * Resets the plugin state.
+     * Marks the player signal when the local player changes tile, or stops moving.
      */
-    private void reset()
+    private void updateMovement()
     {
-        State.PREP.reset();
-        State.GAME.reset();
-        State.START.reset();
-        state = null;
-        position = null;
+        Player local = client.getLocalPlayer();
+        if(local == null)
+        {
+            return;
+        }
+        WorldPoint tile = local.getWorldLocation();
+        boolean moved = !tile.equals(lastTile);
+        if(moved || moving)
+        {
+            Signals.mark(Signal.PLAYER);
+        }
+        lastTile = tile;
+        moving = moved;
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        TickBudget.begin();
+        WinterStatus.refreshWidgets();
+        updateMovement();
+        Signals.onTick();
+
+        game.clearActions();
+        boolean journaled = observeTick();
+        long start = System.nanoTime();
+        session.tick(panel.isRunning());
+        if(journaled)
+        {
+            journal.record(session.getState(), session.getPosition(), session.getStrategy(), game, System.nanoTime() - start);
+        }
+        if(PositionStats.isDirty())
+        {
+            TickBudget.defer(saveStats);
+        }
+        TickBudget.end();
+    }
+
+    private void loadPositionStats()
+    {
+        if(!POSITION_STORE.toFile().exists())
+        {
+            return;
+        }
+        try
+        {
+            PositionStats.load(POSITION_STORE);
+        }
+        catch(IOException e)
+        {
+            PositionStats.reset();
+        }
     }
 
     /**
-     * Starts a new round with the given state.
-     * @param newState The state to start the new round with.
+     * Saves the per position outcomes, keeping them in memory if the store cannot be
+     * written so the next round's save tries again.
      */
-    private void newRound(State newState)
+    private void savePositionStats()
     {
-        position = Position.selectNew(position);
-        State.recalc(position);
-        state = newState;
+        try
+        {
+            PositionStats.save(POSITION_STORE);
+        }
+        catch(IOException ignored)
+        {
+        }
     }
 
-    @Subscribe
-    public void onGameTick(GameTick event)
+    /**
+     * Starts the session journal record for this tick while the bot is running, opening a
+     * new journal when none is open or the current one is full. Journaling stops for the
+     * rest of the plugin's run if a journal cannot be created.
+     * <p>
+     * The next journal is created ahead of time on a tick with budget to spare once the
+     * current one is nearly full, and the full one is closed the same way, so rolling
+     * over does not stall the tick with file work.
+     * @return Whether the tick is being journaled.
+     */
+    private boolean observeTick()
     {
-        // Shutdown if stopped and still running
-        if(!panel.isRunning() && state != null)
+        if(!journaling || (!panel.isRunning() && session.getState() == null))
         {
-            reset();
-            return;
+            return false;
+        }
+        if(journal == null || journal.isFull())
+        {
+            SessionJournal full = journal;
+            journal = spareJournal;
+            spareJournal = null;
+            if(full != null)
+            {
+                TickBudget.defer(new TickBudget.Task(() -> close(full)));
+            }
+            if(journal == null)
+            {
+                prepareJournal();
+            }
+            if(journal == null)
+            {
+                return false;
+            }
         }
+        else if(spareJournal == null && journal.remaining() < JOURNAL_CAPACITY / 10)
+        {
+            TickBudget.defer(prepareJournal);
+        }
+        journal.observe(game);
+        return true;
+    }
 
-        // Start new round if started but not yet running
-        if(panel.isRunning() && state == null)
+    /**
+     * Creates the next journal, making it the current one if none is open.
+     */
+    private void prepareJournal()
+    {
+        if(!journaling || spareJournal != null)
+        {
+            return;
+        }
+        try
+        {
+            SessionJournal created = SessionJournal.create(JOURNAL_DIRECTORY, JOURNAL_CAPACITY, JOURNALS_KEPT);
+            if(journal == null)
+            {
+                journal = created;
+            }
+            else
+            {
+                spareJournal = created;
+            }
+        }
+        catch(IOException e)
         {
-            newRound(State.START);
+            journaling = false;
         }
+    }
 
-        // Stay ALIVE
-        if(state == null || WinterAPI.handleWarmth())
+    private void closeJournal()
+    {
+        close(journal);
+        close(spareJournal);
+        journal = null;
+        spareJournal = null;
+    }
+
+    private static void close(SessionJournal closing)
+    {
+        if(closing == null)
         {
             return;
         }
+        try
+        {
+            closing.close();
+        }
+        catch(IOException ignored)
+        {
+        }
+    }
+
+    @Subscribe
+    public void onGameObjectSpawned(GameObjectSpawned event)
+    {
+        SceneIndex.onSpawned(event.getGameObject());
+    }
 
-        // Transition to prep when round ends
-        if(WinterAPI.getTimer() != 0 && state == State.GAME)
+    @Subscribe
+    public void onGameObjectDespawned(GameObjectDespawned event)
+    {
+        SceneIndex.onDespawned(event.getGameObject());
+    }
+
+    @Subscribe
+    public void onStatChanged(StatChanged event)
+    {
+        Signals.mark(Signal.XP);
+    }
+
+    @Subscribe
+    public void onAnimationChanged(AnimationChanged event)
+    {
+        if(event.getActor() == client.getLocalPlayer())
+        {
+            Signals.mark(Signal.PLAYER);
+            // -1 is the idle animation, the player stopped skilling
+            if(event.getActor().getAnimation() == -1)
+            {
+                Signals.mark(Signal.STOPPED);
+            }
+        }
+    }
+
+    @Subscribe
+    public void onInteractingChanged(InteractingChanged event)
+    {
+        if(event.getSource() == client.getLocalPlayer())
         {
-            newRound(State.PREP);
+            Signals.mark(Signal.PLAYER);
+            if(event.getTarget() == null)
+            {
+                Signals.mark(Signal.STOPPED);
+            }
         }
+    }
 
-        // Execute current state and transition if needed
-        if(!state.getHandler().step())
+    @Subscribe
+    public void onHitsplatApplied(HitsplatApplied event)
+    {
+        if(event.getActor() == client.getLocalPlayer())
+        {
+            Signals.mark(Signal.HIT);
+        }
+    }
+
+    @Subscribe
+    public void onItemContainerChanged(ItemContainerChanged event)
+    {
+        ItemCounts.onContainerChanged(event.getContainerId(), event.getItemContainer());
+    }
+
+    @Subscribe
+    public void onVarbitChanged(VarbitChanged event)
+    {
+        WinterStatus.onVarbitChanged(event.getVarbitId(), event.getValue());
+    }
+
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged event)
+    {
+        if(event.getGameState() == GameState.LOADING)
+        {
+            SceneIndex.clear();
+            PathCache.clear();
+        }
+        else if(event.getGameState() == GameState.LOGGED_IN)
+        {
+            // The scene finished loading, index it whole in case any spawn was missed
+            SceneIndex.rebuild(client);
+            PositionStats.setWorld(client.getWorld());
+            rebuildPaths();
+        }
+    }
+
+    /**
+     * Builds the walking distance fields for the loaded scene, saving its collision
+     * flags for replays once the tick has time to spare if the arena is in it.
+     */
+    private void rebuildPaths()
+    {
+        PathCache.rebuild(client);
+        if(PathCache.covers(WinterAPI.WAITING_AREA))
+        {
+            TickBudget.defer(saveCollision);
+        }
+    }
+
+    private void saveCollision()
+    {
+        try
+        {
+            PathCache.save(COLLISION_STORE);
+        }
+        catch(IOException ignored)
         {
-            state.getHandler().reset();
-            state = State.transition(state);
         }
     }
 
     @Subscribe
     public void onClientTick(ClientTick event)
     {
-        overlay.update(state);
+        overlay.update(session.getState());
     }
 }
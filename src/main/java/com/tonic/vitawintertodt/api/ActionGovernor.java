@@ -0,0 +1,221 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Action;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Signal;
+import lombok.Getter;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.Objects;
+
+/**
+ * {@link WinterGame} that drops an interaction identical to one still in flight, so the
+ * steps that re-issue their action every tick until a result shows up send it once.
+ * One interaction per {@link Action} kind is tracked, keyed by target and option.
+ * <p>
+ * An interaction stays in flight while the player walks to it or works on it. It is
+ * over once it succeeds or fails, as seen through:
+ * <ul>
+ *     <li>an inventory, xp or scene change, the result of the action,</li>
+ *     <li>a hit or the player's action stopping, which cancel it,</li>
+ *     <li>the player standing idle {@link #GRACE_TICKS} after it was issued, so it never started,</li>
+ *     <li>{@link #TIMEOUT_TICKS} passing without any of these.</li>
+ * </ul>
+ * A different interaction of the same kind replaces the one in flight, and walking
+ * replaces the object interaction being walked to.
+ */
+public class ActionGovernor implements WinterGame
+{
+    /**
+     * The ticks an interaction may take to get the player moving or working.
+     */
+    private static final int GRACE_TICKS = 2;
+
+    /**
+     * The ticks after which an interaction with no result may be sent again.
+     */
+    private static final int TIMEOUT_TICKS = 10;
+
+    private static final Signal[] RESULTS = {
+            Signal.INVENTORY,
+            Signal.XP,
+            Signal.SCENE,
+            Signal.HIT,
+            Signal.STOPPED
+    };
+
+    private final WinterGame game;
+    private final InFlight[] inFlight = new InFlight[Action.values().length];
+
+    /**
+     * The number of interactions dropped as duplicates.
+     */
+    @Getter
+    private int dropped;
+
+    /**
+     * Creates a governor.
+     *
+     * @param game The game to pass the interactions that get through to.
+     */
+    public ActionGovernor(WinterGame game)
+    {
+        this.game = game;
+        for(int i = 0; i < inFlight.length; i++)
+        {
+            inFlight[i] = new InFlight();
+        }
+    }
+
+    @Override
+    public int getTickCount()
+    {
+        return game.getTickCount();
+    }
+
+    @Override
+    public int getExperience(Skill skill)
+    {
+        return game.getExperience(skill);
+    }
+
+    @Override
+    public int getLevel(Skill skill)
+    {
+        return game.getLevel(skill);
+    }
+
+    @Override
+    public WorldPoint getPlayerLocation()
+    {
+        return game.getPlayerLocation();
+    }
+
+    @Override
+    public boolean isIdle()
+    {
+        return game.isIdle();
+    }
+
+    @Override
+    public boolean isMoving()
+    {
+        return game.isMoving();
+    }
+
+    @Override
+    public void walkTo(WorldPoint destination)
+    {
+        inFlight[Action.OBJECT.ordinal()].clear();
+        game.walkTo(destination);
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, String action)
+    {
+        if(admit(Action.OBJECT, objectId, -1, action))
+        {
+            game.interactObject(objectId, position, action);
+        }
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, int action)
+    {
+        if(admit(Action.OBJECT, objectId, action, null))
+        {
+            game.interactObject(objectId, position, action);
+        }
+    }
+
+    @Override
+    public boolean interactItem(int itemId, int action)
+    {
+        return admit(Action.ITEM, itemId, action, null) && game.interactItem(itemId, action);
+    }
+
+    @Override
+    public void useItemOn(int itemId, int targetId)
+    {
+        if(admit(Action.USE_ON, itemId, targetId, null))
+        {
+            game.useItemOn(itemId, targetId);
+        }
+    }
+
+    @Override
+    public double random()
+    {
+        return game.random();
+    }
+
+    /**
+     * Checks whether an interaction should be sent, tracking it as in flight if so.
+     */
+    private boolean admit(Action action, int target, int option, String optionName)
+    {
+        InFlight interaction = inFlight[action.ordinal()];
+        int tick = game.getTickCount();
+        if(interaction.matches(target, option, optionName) && !interaction.isOver(tick))
+        {
+            dropped++;
+            return false;
+        }
+        interaction.issue(target, option, optionName, tick);
+        return true;
+    }
+
+    /**
+     * The last interaction of one kind, along with the signal versions it was sent at.
+     */
+    private class InFlight
+    {
+        private boolean active;
+        private int target;
+        private int option;
+        private String optionName;
+        private int issued;
+        private final int[] versions = new int[RESULTS.length];
+
+        private boolean matches(int target, int option, String optionName)
+        {
+            return active && this.target == target && this.option == option
+                    && Objects.equals(this.optionName, optionName);
+        }
+
+        private boolean isOver(int tick)
+        {
+            for(int i = 0; i < RESULTS.length; i++)
+            {
+                if(Signals.version(RESULTS[i]) != versions[i])
+                {
+                    return true;
+                }
+            }
+            if(tick - issued >= TIMEOUT_TICKS)
+            {
+                return true;
+            }
+            return tick - issued >= GRACE_TICKS && game.isIdle();
+        }
+
+        private void issue(int target, int option, String optionName, int tick)
+        {
+            active = true;
+            this.target = target;
+            this.option = option;
+            this.optionName = optionName;
+            issued = tick;
+            for(int i = 0; i < RESULTS.length; i++)
+            {
+                versions[i] = Signals.version(RESULTS[i]);
+            }
+        }
+
+        private void clear()
+        {
+            active = false;
+        }
+    }
+}
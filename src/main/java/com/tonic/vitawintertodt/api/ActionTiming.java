@@ -0,0 +1,233 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Activity;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Learned response times of the repeated skilling actions. For each {@link Activity} two
+ * tick distributions are kept, from issuing the action to its first response and between
+ * consecutive responses, and an action is considered failed once the wait exceeds the
+ * {@link #RETRY_QUANTILE} of the matching distribution.
+ * <p>
+ * Older samples decay so the timings follow changing conditions such as world lag.
+ */
+public class ActionTiming
+{
+    /**
+     * The fraction of responses expected to have arrived before retrying.
+     */
+    public static final double RETRY_QUANTILE = 0.9;
+
+    private static final int MIN_SAMPLES = 8;
+    private static final int MAX_TICKS = 16;
+    private static final double DECAY = 0.97;
+
+    private static final Distribution[] START = distributions();
+    private static final Distribution[] CADENCE = distributions();
+
+    /**
+     * Records the ticks between issuing an action and its first response.
+     *
+     * @param activity The action.
+     * @param ticks The ticks waited.
+     */
+    public static void recordStart(Activity activity, int ticks)
+    {
+        START[activity.ordinal()].record(ticks);
+    }
+
+    /**
+     * Records the ticks between two consecutive responses of an action in progress.
+     *
+     * @param activity The action.
+     * @param ticks The ticks between the responses.
+     */
+    public static void recordCadence(Activity activity, int ticks)
+    {
+        CADENCE[activity.ordinal()].record(ticks);
+    }
+
+    /**
+     * Gets how long to wait for the first response after issuing an action before retrying.
+     *
+     * @param activity The action.
+     * @return The delay in ticks.
+     */
+    public static int getStartDelay(Activity activity)
+    {
+        return START[activity.ordinal()].delay(activity.getDefaultDelay());
+    }
+
+    /**
+     * Gets how long to wait for the next response of an action in progress before retrying.
+     *
+     * @param activity The action.
+     * @return The delay in ticks.
+     */
+    public static int getCadenceDelay(Activity activity)
+    {
+        return CADENCE[activity.ordinal()].delay(activity.getDefaultDelay());
+    }
+
+    /**
+     * Gets the average ticks between two responses of an action in progress, i.e. how
+     * long one item takes.
+     *
+     * @param activity The action.
+     * @return The mean ticks per response.
+     */
+    public static double getMeanCadence(Activity activity)
+    {
+        return CADENCE[activity.ordinal()].mean(activity.getDefaultCadence());
+    }
+
+    /**
+     * Forgets every learned timing.
+     */
+    public static void reset()
+    {
+        for(Distribution distribution : START)
+        {
+            distribution.reset();
+        }
+        for(Distribution distribution : CADENCE)
+        {
+            distribution.reset();
+        }
+    }
+
+    /**
+     * Writes every learned timing, for a {@link SessionJournal} to start its replay from.
+     *
+     * @param out The output.
+     * @throws IOException If the output cannot be written.
+     */
+    static void write(DataOutputStream out) throws IOException
+    {
+        for(Distribution distribution : START)
+        {
+            distribution.write(out);
+        }
+        for(Distribution distribution : CADENCE)
+        {
+            distribution.write(out);
+        }
+    }
+
+    /**
+     * Replaces every learned timing with those written by {@link #write(DataOutputStream)}.
+     *
+     * @param in The input.
+     * @throws IOException If the input cannot be read.
+     */
+    static void read(DataInputStream in) throws IOException
+    {
+        for(Distribution distribution : START)
+        {
+            distribution.read(in);
+        }
+        for(Distribution distribution : CADENCE)
+        {
+            distribution.read(in);
+        }
+    }
+
+    private static Distribution[] distributions()
+    {
+        Distribution[] distributions = new Distribution[Activity.values().length];
+        for(int i = 0; i < distributions.length; i++)
+        {
+            distributions[i] = new Distribution();
+        }
+        return distributions;
+    }
+
+    /**
+     * An exponentially decayed histogram of tick counts.
+     */
+    private static class Distribution
+    {
+        private final double[] weights = new double[MAX_TICKS + 1];
+        private double total;
+        private int samples;
+
+        private void record(int ticks)
+        {
+            for(int i = 0; i < weights.length; i++)
+            {
+                weights[i] *= DECAY;
+            }
+            weights[Math.max(0, Math.min(ticks, MAX_TICKS))] += 1;
+            total = total * DECAY + 1;
+            samples++;
+        }
+
+        /**
+         * Gets the retry delay, one tick past the quantile so a response landing
+         * exactly on it has been observed.
+         */
+        private int delay(int fallback)
+        {
+            if(samples < MIN_SAMPLES)
+            {
+                return fallback;
+            }
+            double target = RETRY_QUANTILE * total;
+            double seen = 0;
+            for(int i = 0; i < weights.length; i++)
+            {
+                seen += weights[i];
+                if(seen >= target)
+                {
+                    return Math.min(i + 1, MAX_TICKS);
+                }
+            }
+            return MAX_TICKS;
+        }
+
+        private double mean(double fallback)
+        {
+            if(samples < MIN_SAMPLES)
+            {
+                return fallback;
+            }
+            double sum = 0;
+            for(int i = 0; i < weights.length; i++)
+            {
+                sum += i * weights[i];
+            }
+            return sum / total;
+        }
+
+        private void reset()
+        {
+            Arrays.fill(weights, 0);
+            total = 0;
+            samples = 0;
+        }
+
+        private void write(DataOutputStream out) throws IOException
+        {
+            for(double weight : weights)
+            {
+                out.writeDouble(weight);
+            }
+            out.writeDouble(total);
+            out.writeInt(samples);
+        }
+
+        private void read(DataInputStream in) throws IOException
+        {
+            for(int i = 0; i < weights.length; i++)
+            {
+                weights[i] = in.readDouble();
+            }
+            total = in.readDouble();
+            samples = in.readInt();
+        }
+    }
+}
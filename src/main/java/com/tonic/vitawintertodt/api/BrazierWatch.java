@@ -0,0 +1,154 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.BrazierState;
+import com.tonic.vitawintertodt.data.Position;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.gameval.ItemID;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Watches the brazier being played during a round and decides when to move to another
+ * one. Once our brazier has been unlit or broken for longer than {@link #THRESHOLD}
+ * ticks, the nearest lit brazier is taken if the extra walk to it, over the walk back
+ * to our own, is shorter than the idle time expected from staying.
+ * <p>
+ * A brazier we can repair and light ourselves costs the ticks spent doing so each time
+ * it goes down, and one that has gone down several times this round is expected to keep
+ * doing so, so a brazier that is repeatedly broken can still lose to a lit one a little
+ * further away. Otherwise a brazier that has been down for a while is expected to stay
+ * down about as long again. Either way the idle time is capped by the ticks left in the
+ * round.
+ */
+public class BrazierWatch
+{
+    /**
+     * The ticks our brazier must be down before moving is considered.
+     */
+    public static final int THRESHOLD = 10;
+
+    /**
+     * The typical ticks taken to repair a broken brazier.
+     */
+    private static final int REPAIR_TICKS = 3;
+
+    /**
+     * The typical ticks taken to light an unlit brazier.
+     */
+    private static final int LIGHT_TICKS = 3;
+
+    private static final Position[] POSITIONS = Position.values();
+
+    private static Position watched;
+    private static int downSince = -1;
+    private static int outages;
+
+    /**
+     * Checks the played brazier, called once per tick during a round.
+     *
+     * @param position The position being played.
+     * @return The position to move to, or null to stay.
+     */
+    public static Position check(Position position)
+    {
+        WinterGame game = WinterAPI.getGame();
+        int tick = game.getTickCount();
+        if(position != watched)
+        {
+            watched = position;
+            downSince = -1;
+            outages = 0;
+        }
+        if(BrazierState.getState(position) == BrazierState.LIT)
+        {
+            downSince = -1;
+            return null;
+        }
+        if(downSince < 0)
+        {
+            downSince = tick;
+            outages++;
+        }
+        int down = tick - downSince;
+        WorldPoint location = game.getPlayerLocation();
+        if(down < THRESHOLD || location == null)
+        {
+            return null;
+        }
+
+        Position nearest = null;
+        int nearestTicks = Integer.MAX_VALUE;
+        for(Position candidate : POSITIONS)
+        {
+            if(candidate == position || BrazierState.getState(candidate) != BrazierState.LIT)
+            {
+                continue;
+            }
+            int ticks = WinterAPI.runTicks(location, candidate.getBrazier());
+            if(ticks < nearestTicks)
+            {
+                nearest = candidate;
+                nearestTicks = ticks;
+            }
+        }
+        if(nearest == null)
+        {
+            return null;
+        }
+
+        int extraWalk = nearestTicks - WinterAPI.runTicks(location, position.getBrazier());
+        return extraWalk < getExpectedIdle(position, down) ? nearest : null;
+    }
+
+    /**
+     * Forgets the watched brazier, called when a round ends.
+     */
+    public static void reset()
+    {
+        watched = null;
+        downSince = -1;
+        outages = 0;
+    }
+
+    /**
+     * Writes the watched brazier, for a {@link SessionJournal} to start its replay from.
+     *
+     * @param out The output.
+     * @throws IOException If the output cannot be written.
+     */
+    static void write(DataOutputStream out) throws IOException
+    {
+        out.writeByte(watched == null ? -1 : watched.ordinal());
+        out.writeInt(downSince);
+        out.writeInt(outages);
+    }
+
+    /**
+     * Replaces the watched brazier with the one written by {@link #write(DataOutputStream)}.
+     *
+     * @param in The input.
+     * @throws IOException If the input cannot be read.
+     */
+    static void read(DataInputStream in) throws IOException
+    {
+        int ordinal = in.readByte();
+        watched = ordinal < 0 ? null : POSITIONS[ordinal];
+        downSince = in.readInt();
+        outages = in.readInt();
+    }
+
+    private static int getExpectedIdle(Position position, int down)
+    {
+        BrazierState state = BrazierState.getState(position);
+        boolean repairable = ItemCounts.inventory(ItemID.TINDERBOX) > 0
+                && (state == BrazierState.UNLIT || ItemCounts.inventory(ItemID.HAMMER) > 0);
+        int idle = down;
+        if(repairable)
+        {
+            idle = (state == BrazierState.UNLIT ? LIGHT_TICKS : REPAIR_TICKS + LIGHT_TICKS) * outages;
+        }
+        return Math.min(idle, RootBatch.getRemainingTicks());
+    }
+}
@@ -0,0 +1,240 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Signal;
+import net.runelite.api.Client;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.gameval.InventoryID;
+
+import java.util.Arrays;
+
+/**
+ * Item count tables for the inventory, the worn equipment and the bank, indexed by item
+ * id and updated incrementally from container change events so item checks are a single
+ * array read.
+ */
+public class ItemCounts
+{
+    /**
+     * The number of inventory slots.
+     */
+    public static final int INVENTORY_SIZE = 28;
+
+    private static final Histogram INVENTORY = new Histogram();
+    private static final Histogram WORN = new Histogram();
+    private static final Histogram BANK = new Histogram();
+
+    /**
+     * Applies a container change to the matching table.
+     *
+     * @param containerId The id of the changed container.
+     * @param container The container, or null if it was removed.
+     */
+    public static void onContainerChanged(int containerId, ItemContainer container)
+    {
+        onItemsChanged(containerId, container == null ? null : container.getItems());
+    }
+
+    /**
+     * Applies the new contents of a container to the matching table.
+     *
+     * @param containerId The id of the changed container.
+     * @param items The container slots, or null if it was removed.
+     */
+    public static void onItemsChanged(int containerId, Item[] items)
+    {
+        Histogram histogram = histogram(containerId);
+        if(histogram != null && histogram.update(items) && histogram == INVENTORY)
+        {
+            Signals.mark(Signal.INVENTORY);
+        }
+    }
+
+    /**
+     * Rebuilds the tables from the client's current containers.
+     * Must be called on the client thread.
+     *
+     * @param client The client.
+     */
+    public static void rebuild(Client client)
+    {
+        onContainerChanged(InventoryID.INV, client.getItemContainer(InventoryID.INV));
+        onContainerChanged(InventoryID.WORN, client.getItemContainer(InventoryID.WORN));
+        onContainerChanged(InventoryID.BANK, client.getItemContainer(InventoryID.BANK));
+    }
+
+    /**
+     * Clears the tables.
+     */
+    public static void clear()
+    {
+        INVENTORY.update(null);
+        WORN.update(null);
+        BANK.update(null);
+    }
+
+    /**
+     * Gets how many of an item are in the inventory.
+     *
+     * @param id The item id.
+     * @return The quantity held.
+     */
+    public static int inventory(int id)
+    {
+        return INVENTORY.count(id);
+    }
+
+    /**
+     * Gets how many of any of the given items are in the inventory.
+     *
+     * @param ids The item ids.
+     * @return The total quantity held.
+     */
+    public static int inventory(int[] ids)
+    {
+        return INVENTORY.count(ids);
+    }
+
+    /**
+     * Gets the item in an inventory slot.
+     *
+     * @param slot The slot index.
+     * @return The item id, or -1 if the slot is empty.
+     */
+    public static int inventorySlot(int slot)
+    {
+        return slot < INVENTORY.slotIds.length ? INVENTORY.slotIds[slot] : -1;
+    }
+
+    /**
+     * Gets how many inventory slots are empty.
+     *
+     * @return The number of free slots.
+     */
+    public static int freeSlots()
+    {
+        return Math.max(0, INVENTORY_SIZE - INVENTORY.occupied);
+    }
+
+    /**
+     * Gets how many of an item are worn.
+     *
+     * @param id The item id.
+     * @return The quantity worn.
+     */
+    public static int worn(int id)
+    {
+        return WORN.count(id);
+    }
+
+    /**
+     * Gets how many of any of the given items are worn.
+     *
+     * @param ids The item ids.
+     * @return The total quantity worn.
+     */
+    public static int worn(int[] ids)
+    {
+        return WORN.count(ids);
+    }
+
+    /**
+     * Gets how many of an item are in the bank, as of the last time it was seen.
+     *
+     * @param id The item id.
+     * @return The quantity banked.
+     */
+    public static int bank(int id)
+    {
+        return BANK.count(id);
+    }
+
+    private static Histogram histogram(int containerId)
+    {
+        switch(containerId)
+        {
+            case InventoryID.INV:
+                return INVENTORY;
+            case InventoryID.WORN:
+                return WORN;
+            case InventoryID.BANK:
+                return BANK;
+        }
+        return null;
+    }
+
+    /**
+     * Per item id quantities of one container, along with the slot snapshot
+     * used to apply the next change as a diff.
+     */
+    private static class Histogram
+    {
+        private int[] counts = new int[32768];
+        private int[] slotIds = new int[0];
+        private int[] slotQuantities = new int[0];
+        private int occupied;
+
+        private int count(int id)
+        {
+            return id >= 0 && id < counts.length ? counts[id] : 0;
+        }
+
+        private int count(int[] ids)
+        {
+            int total = 0;
+            for(int id : ids)
+            {
+                total += count(id);
+            }
+            return total;
+        }
+
+        private boolean update(Item[] items)
+        {
+            boolean changed = false;
+            int size = items == null ? 0 : items.length;
+            if(size > slotIds.length)
+            {
+                int old = slotIds.length;
+                slotIds = Arrays.copyOf(slotIds, size);
+                slotQuantities = Arrays.copyOf(slotQuantities, size);
+                Arrays.fill(slotIds, old, size, -1);
+            }
+
+            for(int slot = 0; slot < slotIds.length; slot++)
+            {
+                int id = -1;
+                int quantity = 0;
+                if(slot < size && items[slot] != null)
+                {
+                    id = items[slot].getId();
+                    quantity = items[slot].getQuantity();
+                }
+                if(id == slotIds[slot] && quantity == slotQuantities[slot])
+                {
+                    continue;
+                }
+                add(slotIds[slot], -slotQuantities[slot]);
+                add(id, quantity);
+                occupied += (id >= 0 ? 1 : 0) - (slotIds[slot] >= 0 ? 1 : 0);
+                slotIds[slot] = id;
+                slotQuantities[slot] = quantity;
+                changed = true;
+            }
+            return changed;
+        }
+
+        private void add(int id, int quantity)
+        {
+            if(id < 0 || quantity == 0)
+            {
+                return;
+            }
+            if(id >= counts.length)
+            {
+                counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+            }
+            counts[id] += quantity;
+        }
+    }
+}
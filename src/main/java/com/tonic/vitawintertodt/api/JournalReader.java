@@ -0,0 +1,460 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Action;
+import com.tonic.vitawintertodt.data.BrazierState;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Signal;
+import com.tonic.vitawintertodt.data.State;
+import com.tonic.vitawintertodt.data.Strategy;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.tonic.vitawintertodt.api.SessionJournal.*;
+
+/**
+ * Reads a journal written by {@link SessionJournal}. The reader is a cursor over the
+ * memory mapped records, {@link #seek(int)} selects a record and the getters read its fields.
+ */
+public class JournalReader implements Closeable
+{
+    private static final State[] STATES = State.values();
+    private static final Position[] POSITIONS = Position.values();
+    private static final BrazierState[] BRAZIER_STATES = BrazierState.values();
+    private static final Action[] ACTION_TYPES = Action.values();
+    private static final Strategy[] STRATEGIES = Strategy.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final String[] names;
+    private int at = HEADER_SIZE;
+
+    private JournalReader(FileChannel channel) throws IOException
+    {
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.getInt(HEADER_MAGIC) != MAGIC)
+        {
+            throw new IOException("Not a session journal");
+        }
+        if(buffer.getInt(HEADER_VERSION) != VERSION || buffer.getInt(HEADER_RECORD_SIZE) != RECORD_SIZE)
+        {
+            throw new IOException("Unsupported journal version " + buffer.getInt(HEADER_VERSION));
+        }
+        size = buffer.getInt(HEADER_COUNT);
+
+        names = new String[buffer.getInt(HEADER_NAME_COUNT)];
+        int offset = HEADER_NAMES;
+        for(int i = 0; i < names.length; i++)
+        {
+            byte[] bytes = new byte[buffer.getShort(offset)];
+            for(int b = 0; b < bytes.length; b++)
+            {
+                bytes[b] = buffer.get(offset + 2 + b);
+            }
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+            offset += 2 + bytes.length;
+        }
+    }
+
+    /**
+     * Opens a journal file.
+     *
+     * @param file The journal file.
+     * @return The reader, positioned on the first record.
+     * @throws IOException If the file cannot be read or is not a journal.
+     */
+    public static JournalReader open(Path file) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            return new JournalReader(channel);
+        }
+        catch(IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Restores what the handlers had learned when the first record was taken, for a
+     * replay to start from. Called once the first record's signals have been marked,
+     * as they were when the snapshot was taken.
+     *
+     * @return false if the journal holds no snapshot, leaving the learned state as is.
+     * @throws IOException If the snapshot cannot be read.
+     */
+    public boolean restoreLearned() throws IOException
+    {
+        byte[] snapshot = new byte[buffer.getInt(HEADER_LEARNED_SIZE)];
+        if(snapshot.length == 0)
+        {
+            return false;
+        }
+        for(int i = 0; i < snapshot.length; i++)
+        {
+            snapshot[i] = buffer.get(HEADER_LEARNED + i);
+        }
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot)))
+        {
+            ActionTiming.read(in);
+            RootBatch.read(in);
+            Planner.read(in);
+            BrazierWatch.read(in);
+            PositionStats.readLearned(in);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of recorded ticks.
+     *
+     * @return The record count.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Selects the record the getters read.
+     *
+     * @param index The record index.
+     */
+    public void seek(int index)
+    {
+        if(index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + size);
+        }
+        at = HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    /**
+     * Gets the game tick the record was taken on.
+     *
+     * @return The tick count.
+     */
+    public int getTick()
+    {
+        return buffer.getInt(at + TICK);
+    }
+
+    /**
+     * Gets the recorded warmth.
+     *
+     * @return The warmth, or Integer.MAX_VALUE if it was unknown.
+     */
+    public int getWarmth()
+    {
+        return buffer.getInt(at + WARMTH);
+    }
+
+    /**
+     * Gets the recorded respawn timer.
+     *
+     * @return The respawn timer in ticks.
+     */
+    public int getRespawnDelay()
+    {
+        return buffer.getInt(at + RESPAWN_DELAY);
+    }
+
+    /**
+     * Gets the recorded boss energy.
+     *
+     * @return The energy percentage, or -1 if it was unknown.
+     */
+    public int getEnergy()
+    {
+        return buffer.getInt(at + ENERGY);
+    }
+
+    /**
+     * Gets a skill's recorded experience.
+     *
+     * @param skill The skill.
+     * @return The experience, or 0 if the skill is not recorded.
+     */
+    public int getExperience(Skill skill)
+    {
+        for(int i = 0; i < SKILLS.length; i++)
+        {
+            if(SKILLS[i] == skill)
+            {
+                return buffer.getInt(at + EXPERIENCE + i * 4);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the player tile's x coordinate.
+     *
+     * @return The x coordinate.
+     */
+    public int getX()
+    {
+        return buffer.getShort(at + X);
+    }
+
+    /**
+     * Gets the player tile's y coordinate.
+     *
+     * @return The y coordinate.
+     */
+    public int getY()
+    {
+        return buffer.getShort(at + Y);
+    }
+
+    /**
+     * Gets the player tile's plane.
+     *
+     * @return The plane, or -1 if the player was not loaded.
+     */
+    public int getPlane()
+    {
+        return buffer.get(at + PLANE);
+    }
+
+    /**
+     * Gets the recorded player tile.
+     *
+     * @return The tile, or null if the player was not loaded.
+     */
+    public WorldPoint getLocation()
+    {
+        return getPlane() < 0 ? null : new WorldPoint(getX(), getY(), getPlane());
+    }
+
+    /**
+     * Gets whether the player was moving.
+     *
+     * @return true if moving.
+     */
+    public boolean isMoving()
+    {
+        return (buffer.get(at + FLAGS) & FLAG_MOVING) != 0;
+    }
+
+    /**
+     * Gets whether the player was idle.
+     *
+     * @return true if idle.
+     */
+    public boolean isIdle()
+    {
+        return (buffer.get(at + FLAGS) & FLAG_IDLE) != 0;
+    }
+
+    /**
+     * Gets whether a signal was marked since the previous record.
+     *
+     * @param signal The signal.
+     * @return true if the signal was marked.
+     */
+    public boolean isMarked(Signal signal)
+    {
+        return (buffer.get(at + MARKED) & (1 << signal.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the session's state after the tick.
+     *
+     * @return The state, or null if the session was inactive.
+     */
+    public State getState()
+    {
+        int ordinal = buffer.get(at + STATE);
+        return ordinal < 0 || ordinal >= STATES.length ? null : STATES[ordinal];
+    }
+
+    /**
+     * Gets the session's position after the tick.
+     *
+     * @return The position, or null if none was selected.
+     */
+    public Position getPosition()
+    {
+        int ordinal = buffer.get(at + POSITION);
+        return ordinal < 0 || ordinal >= POSITIONS.length ? null : POSITIONS[ordinal];
+    }
+
+    /**
+     * Gets the strategy the session played.
+     *
+     * @return The strategy.
+     */
+    public Strategy getStrategy()
+    {
+        int ordinal = buffer.get(at + STRATEGY);
+        return ordinal < 0 || ordinal >= STRATEGIES.length ? Strategy.POINTS : STRATEGIES[ordinal];
+    }
+
+    /**
+     * Gets the state of a position's brazier.
+     *
+     * @param position The position.
+     * @return The brazier state.
+     */
+    public BrazierState getBrazier(Position position)
+    {
+        int ordinal = position.ordinal() < MAX_POSITIONS ? buffer.get(at + BRAZIERS + position.ordinal()) : 0;
+        return ordinal < 0 || ordinal >= BRAZIER_STATES.length ? BrazierState.NONE : BRAZIER_STATES[ordinal];
+    }
+
+    /**
+     * Gets the last step entered by the tick's handler.
+     *
+     * @return The step name, or null if unknown.
+     */
+    public String getStep()
+    {
+        return name(buffer.getShort(at + STEP));
+    }
+
+    /**
+     * Gets the last action the tick issued.
+     *
+     * @return The action, or NONE.
+     */
+    public Action getAction()
+    {
+        int ordinal = buffer.get(at + ACTION);
+        return ordinal < 0 || ordinal >= ACTION_TYPES.length ? Action.NONE : ACTION_TYPES[ordinal];
+    }
+
+    /**
+     * Gets how many actions the tick issued, {@link #getAction()} being the last.
+     *
+     * @return The action count.
+     */
+    public int getActions()
+    {
+        return buffer.get(at + ACTIONS);
+    }
+
+    /**
+     * Gets the last action's target, see {@link Action}.
+     *
+     * @return The target.
+     */
+    public int getTarget()
+    {
+        return buffer.getInt(at + TARGET);
+    }
+
+    /**
+     * Gets the last action's numeric option, see {@link Action}.
+     *
+     * @return The option, or -1 if a named option was used.
+     */
+    public int getOption()
+    {
+        return buffer.getInt(at + OPTION);
+    }
+
+    /**
+     * Gets the last action's named option.
+     *
+     * @return The option name, or null if a numeric option was used.
+     */
+    public String getOptionName()
+    {
+        return name(buffer.getShort(at + OPTION_NAME));
+    }
+
+    /**
+     * Gets the id of the axe held.
+     *
+     * @return The axe id, or -1 if none was held.
+     */
+    public int getAxe()
+    {
+        return buffer.getInt(at + AXE);
+    }
+
+    /**
+     * Gets how many of an item were held.
+     *
+     * @param itemId The item id, one of the journal's recorded items.
+     * @return The quantity, or 0 if the item is not recorded.
+     */
+    public int getCount(int itemId)
+    {
+        for(int i = 0; i < ITEMS.length; i++)
+        {
+            if(ITEMS[i] == itemId)
+            {
+                return buffer.getShort(at + COUNTS + i * 2);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets how many inventory slots were empty.
+     *
+     * @return The number of free slots.
+     */
+    public int getFreeSlots()
+    {
+        return buffer.get(at + FREE_SLOTS);
+    }
+
+    /**
+     * Gets the ids of the items whose counts are recorded.
+     *
+     * @return A copy of the item ids.
+     */
+    public static int[] getItems()
+    {
+        return ITEMS.clone();
+    }
+
+    /**
+     * Gets how long the tick's dispatch took when it was recorded.
+     *
+     * @return The duration in nanoseconds.
+     */
+    public long getDispatchNanos()
+    {
+        return buffer.getLong(at + DISPATCH_NANOS);
+    }
+
+    /**
+     * Gets the last random number the tick drew.
+     *
+     * @return The random number, or NaN if none was drawn.
+     */
+    public double getRandom()
+    {
+        return buffer.getDouble(at + RANDOM);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    private String name(int index)
+    {
+        return index < 0 || index >= names.length ? null : names[index];
+    }
+}
@@ -0,0 +1,108 @@
+package com.tonic.vitawintertodt.api;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size log-linear latency histogram in the style of HdrHistogram. Values are
+ * bucketed by power of two, each split into 16 linear sub-buckets, which keeps every
+ * recorded value within about 6% while recording never allocates.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    /**
+     * Records a value.
+     *
+     * @param value The value, negative values are recorded as zero.
+     */
+    public void record(long value)
+    {
+        value = Math.max(0, value);
+        counts[index(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The count.
+     */
+    public long getCount()
+    {
+        return total;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return The exact maximum, or 0 if nothing was recorded.
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * Gets the value at the given percentile.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The highest value equivalent to the percentile's bucket, capped at the
+     * maximum, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile)
+    {
+        if(total == 0)
+        {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++)
+        {
+            seen += counts[i];
+            if(seen >= target)
+            {
+                return Math.min(highestEquivalent(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Clears every recorded value.
+     */
+    public void reset()
+    {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+
+    private static int index(long value)
+    {
+        if(value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long highestEquivalent(int index)
+    {
+        if(index < SUB_BUCKETS * 2)
+        {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long top = index - (long) shift * SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,127 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.api.entities.TileObjectAPI;
+import com.tonic.api.game.MovementAPI;
+import com.tonic.api.game.SkillAPI;
+import com.tonic.api.widgets.InventoryAPI;
+import com.tonic.data.LayoutView;
+import com.tonic.data.wrappers.ItemEx;
+import com.tonic.data.wrappers.PlayerEx;
+import com.tonic.data.wrappers.TileObjectEx;
+import com.tonic.services.GameManager;
+import com.tonic.util.ClickManagerUtil;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.jfr.InteractionEvent;
+import com.tonic.vitawintertodt.jfr.WinterFlight;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * {@link WinterGame} backed by the live client.
+ */
+public class LiveGame implements WinterGame
+{
+    @Override
+    public int getTickCount()
+    {
+        return GameManager.getTickCount();
+    }
+
+    @Override
+    public int getExperience(Skill skill)
+    {
+        return SkillAPI.getExperience(skill);
+    }
+
+    @Override
+    public int getLevel(Skill skill)
+    {
+        return SkillAPI.getLevel(skill);
+    }
+
+    @Override
+    public WorldPoint getPlayerLocation()
+    {
+        return PlayerEx.getLocal().getWorldPoint();
+    }
+
+    @Override
+    public boolean isIdle()
+    {
+        return PlayerEx.getLocal().isIdle();
+    }
+
+    @Override
+    public boolean isMoving()
+    {
+        return MovementAPI.isMoving();
+    }
+
+    @Override
+    public void walkTo(WorldPoint destination)
+    {
+        InteractionEvent event = WinterFlight.beginInteraction("walk", -1, null);
+        MovementAPI.walkToWorldPoint(destination);
+        WinterFlight.commit(event);
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, String action)
+    {
+        TileObjectEx object = SceneIndex.nearest(objectId, position);
+        if(object == null)
+        {
+            return;
+        }
+        InteractionEvent event = WinterFlight.beginInteraction("object", objectId, action);
+        ClickManagerUtil.queueClickBox(object);
+        TileObjectAPI.interact(object, action);
+        WinterFlight.commit(event);
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, int action)
+    {
+        TileObjectEx object = SceneIndex.nearest(objectId, position);
+        if(object == null)
+        {
+            return;
+        }
+        InteractionEvent event = WinterFlight.beginInteraction("object", objectId, action);
+        ClickManagerUtil.queueClickBox(object);
+        TileObjectAPI.interact(object, action);
+        WinterFlight.commit(event);
+    }
+
+    @Override
+    public boolean interactItem(int itemId, int action)
+    {
+        ItemEx item = InventoryAPI.getItem(itemId);
+        if(item == null)
+        {
+            return false;
+        }
+        InteractionEvent event = WinterFlight.beginInteraction("item", itemId, action);
+        ClickManagerUtil.queueClickBox(item);
+        item.interact(action);
+        WinterFlight.commit(event);
+        return true;
+    }
+
+    @Override
+    public void useItemOn(int itemId, int targetId)
+    {
+        ItemEx item = InventoryAPI.getItem(itemId);
+        ItemEx target = InventoryAPI.getItem(targetId);
+        InteractionEvent event = WinterFlight.beginInteraction("useOn", itemId, targetId);
+        ClickManagerUtil.queueClickBox(LayoutView.SIDE_MENU.getWidget());
+        InventoryAPI.useOn(item, target);
+        WinterFlight.commit(event);
+    }
+
+    @Override
+    public double random()
+    {
+        return Math.random();
+    }
+}
@@ -0,0 +1,195 @@
+package com.tonic.vitawintertodt.api;
+
+import net.runelite.api.Skill;
+import net.runelite.api.gameval.ItemID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The items to carry into the arena, declared as entries of acceptable item ids and
+ * diffed against the inventory and worn equipment. Items held or worn that satisfy an
+ * entry stay where they are, everything else in the inventory is deposited and only
+ * the entries still short are withdrawn.
+ * <p>
+ * The bank contents are those of {@link ItemCounts#bank(int)}, as of the last time the
+ * bank was seen.
+ */
+public class Loadout
+{
+    private final List<int[]> entries = new ArrayList<>();
+    private final List<Integer> amounts = new ArrayList<>();
+    private final Map<Integer, Integer> kept = new HashMap<>();
+    private final List<Integer> deposits = new ArrayList<>();
+    private final Map<Integer, Integer> withdrawals = new HashMap<>();
+
+    /**
+     * Gets the loadout for playing Wintertodt: the tools and the best axe the player
+     * can use, where an axe at least as good as the best one banked counts as held.
+     *
+     * @return The loadout, diffed against the current items.
+     */
+    public static Loadout wintertodt()
+    {
+        return new Loadout()
+                .require(ItemID.KNIFE, 1)
+                .require(ItemID.TINDERBOX, 1)
+                .require(ItemID.HAMMER, 1)
+                .require(acceptedAxes(), 1)
+                .diff();
+    }
+
+    /**
+     * Requires an amount of one item.
+     *
+     * @param id The item id.
+     * @param amount The amount.
+     * @return This loadout.
+     */
+    public Loadout require(int id, int amount)
+    {
+        return require(new int[] {id}, amount);
+    }
+
+    /**
+     * Requires an amount made up of any of the given items.
+     *
+     * @param ids The item ids, the one to withdraw first.
+     * @param amount The amount.
+     * @return This loadout.
+     */
+    public Loadout require(int[] ids, int amount)
+    {
+        entries.add(ids);
+        amounts.add(amount);
+        return this;
+    }
+
+    /**
+     * Works out what to deposit and withdraw. Worn items satisfy an entry before
+     * inventory items, and inventory items beyond what the entries need are deposited.
+     *
+     * @return This loadout.
+     */
+    public Loadout diff()
+    {
+        kept.clear();
+        deposits.clear();
+        withdrawals.clear();
+        for(int i = 0; i < entries.size(); i++)
+        {
+            int[] ids = entries.get(i);
+            int remaining = amounts.get(i);
+            for(int id : ids)
+            {
+                remaining -= Math.min(remaining, ItemCounts.worn(id));
+            }
+            for(int id : ids)
+            {
+                int keep = Math.min(remaining, ItemCounts.inventory(id));
+                if(keep > 0)
+                {
+                    kept.merge(id, keep, Integer::sum);
+                    remaining -= keep;
+                }
+            }
+            if(remaining > 0)
+            {
+                withdrawals.merge(banked(ids), remaining, Integer::sum);
+            }
+        }
+
+        for(int slot = 0; slot < ItemCounts.INVENTORY_SIZE; slot++)
+        {
+            int id = ItemCounts.inventorySlot(slot);
+            if(id < 0 || deposits.contains(id))
+            {
+                continue;
+            }
+            int keep = kept.getOrDefault(id, 0);
+            if(ItemCounts.inventory(id) > keep)
+            {
+                // Deposits take every one of an item, withdraw back those still wanted
+                deposits.add(id);
+                if(keep > 0)
+                {
+                    withdrawals.merge(id, keep, Integer::sum);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether the items held already match the loadout, so the bank does not
+     * need to be visited.
+     *
+     * @return true if there is nothing to deposit or withdraw.
+     */
+    public boolean isHeld()
+    {
+        return deposits.isEmpty() && withdrawals.isEmpty();
+    }
+
+    /**
+     * Gets the items to deposit, every one of each.
+     *
+     * @return The item ids.
+     */
+    public List<Integer> getDeposits()
+    {
+        return deposits;
+    }
+
+    /**
+     * Gets the items to withdraw.
+     *
+     * @return The amount to withdraw by item id.
+     */
+    public Map<Integer, Integer> getWithdrawals()
+    {
+        return withdrawals;
+    }
+
+    /**
+     * Gets the axes at least as good as the best one the player can use from the bank,
+     * best first. Any usable axe is accepted until the bank has been seen.
+     */
+    private static int[] acceptedAxes()
+    {
+        int best = WinterAPI.decideBestAxe();
+        int level = WinterAPI.getGame().getLevel(Skill.WOODCUTTING);
+        int count = 0;
+        int[] axes = new int[WinterAPI.AXES.length];
+        for(int i = 0; i < WinterAPI.AXES.length; i++)
+        {
+            if(level >= WinterAPI.AXE_LEVELS[i])
+            {
+                axes[count++] = WinterAPI.AXES[i];
+            }
+            if(WinterAPI.AXES[i] == best)
+            {
+                break;
+            }
+        }
+        return Arrays.copyOf(axes, count);
+    }
+
+    /**
+     * Gets the first of the given items the bank holds, or the first one if it holds none.
+     */
+    private static int banked(int[] ids)
+    {
+        for(int id : ids)
+        {
+            if(ItemCounts.bank(id) > 0)
+            {
+                return id;
+            }
+        }
+        return ids[0];
+    }
+}
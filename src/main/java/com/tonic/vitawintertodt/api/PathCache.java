@@ -0,0 +1,435 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Position;
+import net.runelite.api.Client;
+import net.runelite.api.CollisionData;
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.coords.WorldPoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Walking distances and paths to the fixed Wintertodt waypoints: every {@link Position}'s
+ * brazier, tree and herb roots, the waiting area and the bank.
+ * <p>
+ * When a scene loads, its collision flags are copied once and a breadth first distance
+ * field is built from every waypoint inside it, so the walking distance from any tile
+ * is a single lookup. Paths are found by descending a field and cached by start tile,
+ * making a repeated walk cost a map lookup and a new one its path length, never a
+ * search.
+ * <p>
+ * Without a loaded scene, or for a waypoint outside it, distances fall back to the
+ * straight line distance and walks click the destination itself. The collision flags
+ * can be saved alongside the session journals so replays see the same fields.
+ * <p>
+ * Used only on the client thread.
+ */
+public class PathCache
+{
+    private static final int MAGIC = 0x57545043;
+    private static final int VERSION = 1;
+
+    /**
+     * The furthest tile along a path clicked at once, kept inside the range the game
+     * finds paths for a click.
+     */
+    public static final int CLICK_RANGE = 14;
+
+    private static final int UNREACHED = -1;
+    private static final int[] DX = {-1, 1, 0, 0, -1, 1, -1, 1};
+    private static final int[] DY = {0, 0, -1, 1, -1, -1, 1, 1};
+    private static final Map<WorldPoint, Field> FIELDS = new HashMap<>();
+
+    private static int baseX;
+    private static int baseY;
+    private static int plane;
+    private static int[][] flags;
+
+    /**
+     * Copies the loaded scene's collision flags and builds the distance fields, called
+     * whenever a scene finishes loading.
+     *
+     * @param client The client.
+     */
+    public static void rebuild(Client client)
+    {
+        CollisionData[] maps = client.getCollisionMaps();
+        if(maps == null || maps[client.getPlane()] == null)
+        {
+            clear();
+            return;
+        }
+        int[][] source = maps[client.getPlane()].getFlags();
+        int[][] copy = new int[source.length][];
+        for(int x = 0; x < source.length; x++)
+        {
+            copy[x] = source[x].clone();
+        }
+        load(client.getBaseX(), client.getBaseY(), client.getPlane(), copy);
+    }
+
+    /**
+     * Forgets the scene, used when it is unloaded.
+     */
+    public static void clear()
+    {
+        flags = null;
+        FIELDS.clear();
+    }
+
+    /**
+     * Checks whether the loaded scene has a distance field for the given waypoint.
+     *
+     * @param waypoint The waypoint.
+     * @return true if distances and paths to it come from the scene.
+     */
+    public static boolean covers(WorldPoint waypoint)
+    {
+        return FIELDS.containsKey(waypoint);
+    }
+
+    /**
+     * Gets the number of steps a walk between two tiles takes.
+     *
+     * @param from The start tile.
+     * @param to The destination tile, a waypoint for the walking distance.
+     * @return The walking steps, the straight line distance when {@code to} has no field,
+     *         or -1 if {@code from} cannot reach it.
+     */
+    public static int distance(WorldPoint from, WorldPoint to)
+    {
+        Field field = FIELDS.get(to);
+        if(field == null)
+        {
+            return from.distanceTo(to);
+        }
+        return field.get(from);
+    }
+
+    /**
+     * Checks whether a waypoint can be walked to from a tile without leaving the scene
+     * or passing through a door.
+     *
+     * @param from The start tile.
+     * @param to The waypoint.
+     * @return true if the waypoint has a field and {@code from} is in it.
+     */
+    public static boolean reachable(WorldPoint from, WorldPoint to)
+    {
+        Field field = FIELDS.get(to);
+        return field != null && field.get(from) != UNREACHED;
+    }
+
+    /**
+     * Gets the tile to click next when walking to a waypoint: the waypoint itself
+     * when it is within {@link #CLICK_RANGE} steps, otherwise the furthest tile of
+     * the cached path within that range.
+     *
+     * @param from The player's tile.
+     * @param to The waypoint.
+     * @return The tile to click.
+     */
+    public static WorldPoint next(WorldPoint from, WorldPoint to)
+    {
+        WorldPoint[] path = path(from, to);
+        if(path == null || path.length <= CLICK_RANGE)
+        {
+            return to;
+        }
+        return path[CLICK_RANGE - 1];
+    }
+
+    /**
+     * Gets the path from a tile to a waypoint, finding it on first use.
+     *
+     * @param from The start tile.
+     * @param to The waypoint.
+     * @return The tiles stepped on after {@code from}, ending at the waypoint, or null
+     *         if the waypoint has no field or cannot be reached.
+     */
+    public static WorldPoint[] path(WorldPoint from, WorldPoint to)
+    {
+        Field field = FIELDS.get(to);
+        return field == null ? null : field.path(from);
+    }
+
+    /**
+     * Writes the scene's collision flags to a file.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void save(Path file) throws IOException
+    {
+        if(flags == null)
+        {
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(baseX);
+            out.writeInt(baseY);
+            out.writeInt(plane);
+            out.writeInt(flags.length);
+            out.writeInt(flags[0].length);
+            for(int[] column : flags)
+            {
+                for(int flag : column)
+                {
+                    out.writeInt(flag);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads collision flags saved by {@link #save(Path)} and builds the distance fields.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be read or is not a collision store.
+     */
+    public static void load(Path file) throws IOException
+    {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+            {
+                throw new IOException("Not a collision store");
+            }
+            int x = in.readInt();
+            int y = in.readInt();
+            int z = in.readInt();
+            int[][] read = new int[in.readInt()][in.readInt()];
+            for(int[] column : read)
+            {
+                for(int i = 0; i < column.length; i++)
+                {
+                    column[i] = in.readInt();
+                }
+            }
+            load(x, y, z, read);
+        }
+    }
+
+    private static void load(int x, int y, int z, int[][] collision)
+    {
+        clear();
+        baseX = x;
+        baseY = y;
+        plane = z;
+        flags = collision;
+        for(WorldPoint waypoint : waypoints())
+        {
+            Field field = build(waypoint);
+            if(field != null)
+            {
+                FIELDS.put(waypoint, field);
+            }
+        }
+    }
+
+    private static List<WorldPoint> waypoints()
+    {
+        List<WorldPoint> waypoints = new ArrayList<>();
+        waypoints.add(WinterAPI.WAITING_AREA);
+        waypoints.add(WinterAPI.BANK);
+        for(Position position : Position.values())
+        {
+            waypoints.add(position.getBrazier());
+            waypoints.add(position.getTree());
+            waypoints.add(position.getHerbRoots());
+        }
+        return waypoints;
+    }
+
+    /**
+     * Builds the distance field of a waypoint by a breadth first search outwards from
+     * it, stepping only where the player could step towards it. The waypoint itself may
+     * be blocked, as a tree is.
+     */
+    private static Field build(WorldPoint waypoint)
+    {
+        int sx = waypoint.getX() - baseX;
+        int sy = waypoint.getY() - baseY;
+        if(waypoint.getPlane() != plane || !inScene(sx, sy))
+        {
+            return null;
+        }
+        int width = flags.length;
+        int height = flags[0].length;
+        int[] distances = new int[width * height];
+        Arrays.fill(distances, UNREACHED);
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        distances[sx * height + sy] = 0;
+        queue[tail++] = sx * height + sy;
+        while(head < tail)
+        {
+            int tile = queue[head++];
+            int x = tile / height;
+            int y = tile % height;
+            for(int d = 0; d < DX.length; d++)
+            {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                int neighbour = nx * height + ny;
+                if(!inScene(nx, ny) || distances[neighbour] != UNREACHED
+                        || !canStep(nx, ny, -DX[d], -DY[d], tile == queue[0]))
+                {
+                    continue;
+                }
+                distances[neighbour] = distances[tile] + 1;
+                queue[tail++] = neighbour;
+            }
+        }
+        return new Field(waypoint, height, distances);
+    }
+
+    /**
+     * Checks whether the player can step from a scene tile in the given direction.
+     *
+     * @param toWaypoint Whether the step ends on a waypoint, which may be blocked.
+     */
+    private static boolean canStep(int x, int y, int dx, int dy, boolean toWaypoint)
+    {
+        if(dx != 0 && dy != 0)
+        {
+            return canStep(x, y, dx, 0, false)
+                    && canStep(x, y, 0, dy, false)
+                    && canStep(x + dx, y, 0, dy, toWaypoint)
+                    && canStep(x, y + dy, dx, 0, toWaypoint);
+        }
+        int tx = x + dx;
+        int ty = y + dy;
+        if(!inScene(tx, ty))
+        {
+            return false;
+        }
+        int from = flags[x][y];
+        int to = flags[tx][ty];
+        if(!toWaypoint && (to & CollisionDataFlag.BLOCK_MOVEMENT_FULL) != 0)
+        {
+            return false;
+        }
+        if(dx > 0)
+        {
+            return (from & CollisionDataFlag.BLOCK_MOVEMENT_EAST) == 0 && (to & CollisionDataFlag.BLOCK_MOVEMENT_WEST) == 0;
+        }
+        if(dx < 0)
+        {
+            return (from & CollisionDataFlag.BLOCK_MOVEMENT_WEST) == 0 && (to & CollisionDataFlag.BLOCK_MOVEMENT_EAST) == 0;
+        }
+        if(dy > 0)
+        {
+            return (from & CollisionDataFlag.BLOCK_MOVEMENT_NORTH) == 0 && (to & CollisionDataFlag.BLOCK_MOVEMENT_SOUTH) == 0;
+        }
+        return (from & CollisionDataFlag.BLOCK_MOVEMENT_SOUTH) == 0 && (to & CollisionDataFlag.BLOCK_MOVEMENT_NORTH) == 0;
+    }
+
+    private static boolean inScene(int x, int y)
+    {
+        return x >= 0 && y >= 0 && x < flags.length && y < flags[0].length;
+    }
+
+    /**
+     * The walking distance from every scene tile to one waypoint, and the paths found on it.
+     */
+    private static class Field
+    {
+        private final WorldPoint waypoint;
+        private final int height;
+        private final int[] distances;
+        private final Map<Integer, WorldPoint[]> paths = new HashMap<>();
+
+        private Field(WorldPoint waypoint, int height, int[] distances)
+        {
+            this.waypoint = waypoint;
+            this.height = height;
+            this.distances = distances;
+        }
+
+        /**
+         * Gets the walking distance from a tile. A blocked tile, such as another
+         * waypoint's tree, counts as one step further than its nearest neighbour.
+         */
+        private int get(WorldPoint from)
+        {
+            int x = from.getX() - baseX;
+            int y = from.getY() - baseY;
+            if(from.getPlane() != plane || !inScene(x, y))
+            {
+                return UNREACHED;
+            }
+            int distance = distances[x * height + y];
+            if(distance != UNREACHED || (flags[x][y] & CollisionDataFlag.BLOCK_MOVEMENT_FULL) == 0)
+            {
+                return distance;
+            }
+            for(int d = 0; d < DX.length; d++)
+            {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                int next = inScene(nx, ny) ? distances[nx * height + ny] : UNREACHED;
+                if(next != UNREACHED && (distance == UNREACHED || next + 1 < distance))
+                {
+                    distance = next + 1;
+                }
+            }
+            return distance;
+        }
+
+        private WorldPoint[] path(WorldPoint from)
+        {
+            int x = from.getX() - baseX;
+            int y = from.getY() - baseY;
+            if(from.getPlane() != plane || !inScene(x, y) || distances[x * height + y] == UNREACHED)
+            {
+                return null;
+            }
+            int distance = distances[x * height + y];
+            return paths.computeIfAbsent(x * height + y, tile -> descend(x, y, distance));
+        }
+
+
+        /**
+         * Follows the field downhill to the waypoint, one step per tile.
+         */
+        private WorldPoint[] descend(int x, int y, int distance)
+        {
+            WorldPoint[] path = new WorldPoint[distance];
+            for(int i = 0; i < distance; i++)
+            {
+                for(int d = 0; d < DX.length; d++)
+                {
+                    int nx = x + DX[d];
+                    int ny = y + DY[d];
+                    if(inScene(nx, ny) && distances[nx * height + ny] == distance - i - 1
+                            && canStep(x, y, DX[d], DY[d], distance - i == 1))
+                    {
+                        x = nx;
+                        y = ny;
+                        break;
+                    }
+                }
+                path[i] = new WorldPoint(baseX + x, baseY + y, plane);
+            }
+            path[distance - 1] = waypoint;
+            return path;
+        }
+    }
+}
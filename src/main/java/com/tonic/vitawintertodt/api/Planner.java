@@ -0,0 +1,586 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Activity;
+import com.tonic.vitawintertodt.data.BrazierState;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Signal;
+import com.tonic.vitawintertodt.data.Strategy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.gameval.ItemID;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Lookahead planner for the {@link Strategy#POINTS} gameplay loop. At each decision it
+ * weighs every candidate for the next chop, fletch and feed cycle: how many roots to
+ * chop before leaving the tree, how many of them to fletch rather than feed raw, and
+ * whether to drink a potion now rather than when warmth next runs low.
+ * <p>
+ * Each candidate is played forward over the ticks left in the round on a light model:
+ * <ul>
+ *     <li>the learned {@link ActionTiming} cadences and walking distances,</li>
+ *     <li>the chance our brazier breaks per lit tick, learned from what we watch,
+ *     along with the repair time and the warmth a break costs,</li>
+ *     <li>warmth draining over time and with hits, and the potions drunk to keep it up,</li>
+ *     <li>the points scored for what is fed before the boss dies, followed by full
+ *     cycles at the steady rate for the rest of the lookahead.</li>
+ * </ul>
+ * A decision is planned once and kept until the inventory or the scene changes, so
+ * the step conditions asking for it on every other signal reuse the last plan. The
+ * search evaluates at most {@link #NODE_BUDGET} candidates, split across a
+ * {@link ForkJoinPool} while the plugin runs and on the calling thread otherwise. The
+ * {@link RootBatch} heuristics' choice is kept unless the best candidate beats it by
+ * {@link #MARGIN}, and is used outright when there are more candidates than the budget.
+ * The budget counts candidates rather than time and the inputs are all replayed state,
+ * so the simulator and a replayed session make the same choices as the original run.
+ */
+public class Planner
+{
+    /**
+     * The most candidates a search evaluates.
+     */
+    public static final int NODE_BUDGET = 2048;
+
+    /**
+     * The most ticks looked ahead, so an unknown round length still gives a finite plan.
+     */
+    private static final int HORIZON = 300;
+
+    /**
+     * Candidates evaluated by one task before the search splits.
+     */
+    private static final int LEAF = 64;
+
+    private static final int ROOT_POINTS = 10;
+    private static final int KINDLING_POINTS = 25;
+    private static final int DRINK_BELOW = 65;
+    private static final int MAX_WARMTH = 100;
+    private static final int DOSE_WARMTH = 25;
+    private static final int DRAIN_TICKS = 5;
+    private static final double HIT_CHANCE = 1 / 120.0;
+    private static final int HIT_DAMAGE = 8;
+    private static final int BREAK_DAMAGE = 10;
+    private static final int REPAIR_TICKS = 3;
+
+    /**
+     * The ticks lost when a drink interrupts the action in progress, on top of the drink.
+     */
+    private static final int INTERRUPT_TICKS = 2;
+
+    /**
+     * The points a plan must gain over the heuristics' to be followed, so noise in the
+     * model cannot trade a batch the heuristics chose well for a near equal one.
+     */
+    private static final int MARGIN = KINDLING_POINTS;
+
+    private static final double DECAY = 0.995;
+    private static final double PRIOR_BREAK_CHANCE = 1 / 250.0;
+    private static final double PRIOR_LIT_TICKS = 250;
+
+    private static Position watched;
+    private static boolean wasLit;
+    private static double litTicks;
+    private static double breaks;
+    private static boolean drinkNow;
+    private static volatile ForkJoinPool pool;
+    private static final Decision CHOP = new Decision();
+    private static final Decision FEED_RAW = new Decision();
+    private static int plans;
+    private static int overBudget;
+
+    /**
+     * Starts the pool the searches are split across, called when the plugin starts.
+     * Without it searches run on the calling thread.
+     */
+    public static void start()
+    {
+        if(pool == null)
+        {
+            pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        }
+    }
+
+    /**
+     * Shuts the pool down, called when the plugin stops.
+     */
+    public static void stop()
+    {
+        ForkJoinPool stopping = pool;
+        pool = null;
+        if(stopping != null)
+        {
+            stopping.shutdownNow();
+        }
+    }
+
+    /**
+     * Learns how often the played brazier breaks, called once per tick during a round.
+     *
+     * @param position The position being played.
+     */
+    public static void onTick(Position position)
+    {
+        boolean lit = BrazierState.getState(position) == BrazierState.LIT;
+        if(position == watched && wasLit)
+        {
+            litTicks = litTicks * DECAY + 1;
+            breaks *= DECAY;
+            if(!lit)
+            {
+                breaks++;
+            }
+        }
+        watched = position;
+        wasLit = lit;
+    }
+
+    /**
+     * Gets how many roots to hold before leaving the tree.
+     *
+     * @param position The position being played.
+     * @return The number of roots to hold, at least one while there is room for it.
+     */
+    public static int getChopTarget(Position position)
+    {
+        if(!CHOP.isCurrent(position))
+        {
+            int target = RootBatch.getTarget(position, Strategy.POINTS);
+            Plan plan = plan(position, true, target, target);
+            CHOP.store(position, plan == null ? target : plan.getChopTo());
+        }
+        return CHOP.getValue();
+    }
+
+    /**
+     * Checks whether the rest of the roots held should be fed raw rather than fletched.
+     *
+     * @param position The position being played.
+     * @return true if fletching should stop.
+     */
+    public static boolean shouldFeedRaw(Position position)
+    {
+        if(!FEED_RAW.isCurrent(position))
+        {
+            boolean raw = RootBatch.shouldFeedRaw();
+            int roots = ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT);
+            Plan plan = plan(position, false, roots, raw ? 0 : roots);
+            FEED_RAW.store(position, (plan == null ? raw : plan.getFletch() == 0) ? 1 : 0);
+        }
+        return FEED_RAW.getValue() != 0;
+    }
+
+    /**
+     * Checks whether to drink a potion, either because warmth is low or because the
+     * last plan found drinking now cheaper than interrupting a later action.
+     *
+     * @param warmth The current warmth.
+     * @return true to drink.
+     */
+    public static boolean shouldDrink(int warmth)
+    {
+        if(warmth < DRINK_BELOW)
+        {
+            return true;
+        }
+        if(drinkNow && warmth <= MAX_WARMTH - DOSE_WARMTH)
+        {
+            drinkNow = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of searches run.
+     *
+     * @return The search count.
+     */
+    public static int getPlans()
+    {
+        return plans;
+    }
+
+    /**
+     * Gets the number of searches with more candidates than {@link #NODE_BUDGET}.
+     *
+     * @return The count of searches left to the heuristics.
+     */
+    public static int getOverBudget()
+    {
+        return overBudget;
+    }
+
+    /**
+     * Forgets the pending drink, the planned decisions and the brazier being watched,
+     * called when a round ends. The learned break chance is kept.
+     */
+    public static void reset()
+    {
+        watched = null;
+        wasLit = false;
+        drinkNow = false;
+        CHOP.clear();
+        FEED_RAW.clear();
+    }
+
+    /**
+     * Writes the learned break chance, the watched brazier, the pending drink and the
+     * decisions still current, for a {@link SessionJournal} to start its replay from.
+     *
+     * @param out The output.
+     * @throws IOException If the output cannot be written.
+     */
+    static void write(DataOutputStream out) throws IOException
+    {
+        out.writeByte(watched == null ? -1 : watched.ordinal());
+        out.writeBoolean(wasLit);
+        out.writeDouble(litTicks);
+        out.writeDouble(breaks);
+        out.writeBoolean(drinkNow);
+        CHOP.write(out);
+        FEED_RAW.write(out);
+    }
+
+    /**
+     * Replaces the planner's state with the one written by {@link #write(DataOutputStream)}.
+     * The decisions restored count as current until the next inventory or scene change.
+     *
+     * @param in The input.
+     * @throws IOException If the input cannot be read.
+     */
+    static void read(DataInputStream in) throws IOException
+    {
+        int ordinal = in.readByte();
+        watched = ordinal < 0 ? null : Position.values()[ordinal];
+        wasLit = in.readBoolean();
+        litTicks = in.readDouble();
+        breaks = in.readDouble();
+        drinkNow = in.readBoolean();
+        CHOP.read(in);
+        FEED_RAW.read(in);
+    }
+
+    /**
+     * Searches the candidates for the current cycle.
+     *
+     * @param position The position being played.
+     * @param chopping Whether the roots to chop are still open, rather than fixed to those held.
+     * @param chopTo The number of roots the heuristics would chop to.
+     * @param fletch The number of roots the heuristics would fletch.
+     * @return The best plan, the heuristics' own unless beaten by {@link #MARGIN}, or null
+     * if there are more candidates than {@link #NODE_BUDGET}.
+     */
+    private static Plan plan(Position position, boolean chopping, int chopTo, int fletch)
+    {
+        Model model = new Model(position, chopping);
+        int candidates = model.candidates();
+        plans++;
+        if(candidates > NODE_BUDGET)
+        {
+            overBudget++;
+            return null;
+        }
+        Plan best = search(model, candidates);
+        double heuristic = model.value(chopTo, fletch, false);
+        if(best.getValue() < heuristic + MARGIN)
+        {
+            best = new Plan(chopTo, fletch, false, heuristic);
+        }
+        drinkNow = best.isDrink();
+        return best;
+    }
+
+    /**
+     * Evaluates every candidate, across the pool when it is running and the search is
+     * large enough to split. Either way the same candidate wins, so where the search
+     * runs never changes the choice.
+     */
+    private static Plan search(Model model, int candidates)
+    {
+        ForkJoinPool running = pool;
+        if(running != null && candidates > LEAF)
+        {
+            try
+            {
+                return running.invoke(new Search(model, 0, candidates));
+            }
+            catch(RejectedExecutionException ignored)
+            {
+                // Stopped mid-round, finish the search here
+            }
+        }
+        return model.best(0, candidates);
+    }
+
+    /**
+     * A decision kept until the inventory or scene it was planned from changes.
+     */
+    private static class Decision
+    {
+        private Position position;
+        private int inventory;
+        private int scene;
+        @Getter
+        private int value;
+
+        private boolean isCurrent(Position position)
+        {
+            return position == this.position
+                    && inventory == Signals.version(Signal.INVENTORY)
+                    && scene == Signals.version(Signal.SCENE);
+        }
+
+        private void store(Position position, int value)
+        {
+            this.position = position;
+            this.value = value;
+            inventory = Signals.version(Signal.INVENTORY);
+            scene = Signals.version(Signal.SCENE);
+        }
+
+        private void clear()
+        {
+            position = null;
+        }
+
+        private void write(DataOutputStream out) throws IOException
+        {
+            boolean current = position != null && isCurrent(position);
+            out.writeByte(current ? position.ordinal() : -1);
+            out.writeInt(value);
+        }
+
+        private void read(DataInputStream in) throws IOException
+        {
+            int ordinal = in.readByte();
+            int read = in.readInt();
+            if(ordinal < 0)
+            {
+                clear();
+            }
+            else
+            {
+                store(Position.values()[ordinal], read);
+            }
+        }
+    }
+
+    /**
+     * One candidate and the points it is expected to score within the lookahead.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static class Plan
+    {
+        private final int chopTo;
+        private final int fletch;
+        private final boolean drink;
+        private final double value;
+    }
+
+    /**
+     * Splits the candidates across the pool and keeps the best, preferring the earlier
+     * candidate on a tie so the choice does not depend on scheduling.
+     */
+    @RequiredArgsConstructor
+    private static class Search extends RecursiveTask<Plan>
+    {
+        private final Model model;
+        private final int from;
+        private final int to;
+
+        @Override
+        protected Plan compute()
+        {
+            if(to - from <= LEAF)
+            {
+                return model.best(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Search right = new Search(model, middle, to);
+            right.fork();
+            Plan left = new Search(model, from, middle).compute();
+            Plan other = right.join();
+            return other.getValue() > left.getValue() ? other : left;
+        }
+    }
+
+    /**
+     * The game state a search starts from, read once on the client thread so the
+     * pool threads never touch the live caches.
+     */
+    private static class Model
+    {
+        private final int roots;
+        private final int kindling;
+        private final int capacity;
+        private final int minChop;
+        private final int maxChop;
+        private final double horizon;
+        private final int warmth;
+        private final int doses;
+        private final boolean down;
+        private final double breakChance;
+        private final double chop;
+        private final double fletch;
+        private final double feed;
+        private final int toTree;
+        private final int toBrazier;
+        private final int treeToBrazier;
+        private final double steadyRate;
+
+        private Model(Position position, boolean chopping)
+        {
+            roots = ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT);
+            kindling = ItemCounts.inventory(ItemID.WINT_BRUMA_KINDLING);
+            capacity = roots + kindling + ItemCounts.freeSlots();
+            maxChop = chopping ? roots + ItemCounts.freeSlots() : roots;
+            minChop = chopping ? Math.min(Math.max(1, roots), maxChop) : roots;
+            horizon = Math.min(HORIZON, RootBatch.getRemainingTicks());
+            warmth = WinterAPI.getWarmth();
+            doses = ItemCounts.inventory(ItemID.WINT_POTION1)
+                    + 2 * ItemCounts.inventory(ItemID.WINT_POTION2)
+                    + 3 * ItemCounts.inventory(ItemID.WINT_POTION3)
+                    + 4 * ItemCounts.inventory(ItemID.WINT_POTION4);
+            down = BrazierState.getState(position) != BrazierState.LIT;
+            breakChance = (breaks + PRIOR_BREAK_CHANCE * PRIOR_LIT_TICKS) / (litTicks + PRIOR_LIT_TICKS);
+            chop = ActionTiming.getMeanCadence(Activity.CHOP);
+            fletch = ActionTiming.getMeanCadence(Activity.FLETCH);
+            feed = ActionTiming.getMeanCadence(Activity.FEED);
+            WorldPoint location = WinterAPI.getGame().getPlayerLocation();
+            toTree = location == null ? 0 : WinterAPI.runTicks(location, position.getTree());
+            toBrazier = location == null ? 0 : WinterAPI.runTicks(location, position.getBrazier());
+            treeToBrazier = WinterAPI.runTicks(position.getTree(), position.getBrazier());
+
+            int batch = capacity;
+            if(batch == 0)
+            {
+                // Nothing fits, no further cycles can score
+                steadyRate = 0;
+                return;
+            }
+            double active = batch * (chop + fletch + feed);
+            double cycle = treeToBrazier + batch * chop + Math.max(treeToBrazier, batch * fletch)
+                    + batch * feed * (1 + breakChance * REPAIR_TICKS);
+            // Warmth lost over a cycle is drunk back at the threshold, interrupting an action
+            double lost = cycle / DRAIN_TICKS + HIT_CHANCE * active * HIT_DAMAGE
+                    + breakChance * batch * feed * BREAK_DAMAGE;
+            cycle += lost / DOSE_WARMTH * (1 + INTERRUPT_TICKS);
+            steadyRate = batch * KINDLING_POINTS / cycle;
+        }
+
+        /**
+         * Gets the number of candidates: every root count to chop to, every number of
+         * them to fletch and whether to drink first.
+         */
+        private int candidates()
+        {
+            return (maxChop - minChop + 1) * (maxChop + 1) * 2;
+        }
+
+        /**
+         * Evaluates a range of candidates, keeping the earliest of the best.
+         */
+        private Plan best(int from, int to)
+        {
+            Plan best = null;
+            for(int i = from; i < to; i++)
+            {
+                Plan plan = evaluate(i);
+                if(best == null || plan.getValue() > best.getValue())
+                {
+                    best = plan;
+                }
+            }
+            return best;
+        }
+
+        private Plan evaluate(int candidate)
+        {
+            boolean drink = (candidate & 1) != 0;
+            int rest = candidate >> 1;
+            int chopTo = minChop + rest / (maxChop + 1);
+            int fletched = rest % (maxChop + 1);
+            if(fletched > chopTo)
+            {
+                return new Plan(chopTo, fletched, drink, Double.NEGATIVE_INFINITY);
+            }
+            return new Plan(chopTo, fletched, drink, value(chopTo, fletched, drink));
+        }
+
+        /**
+         * Plays one cycle forward and scores it, followed by steady full cycles for the
+         * rest of the lookahead.
+         */
+        private double value(int chopTo, int fletched, boolean drink)
+        {
+            double ticks = 0;
+            double heat = warmth;
+            int left = doses;
+            if(drink)
+            {
+                if(left == 0 || heat > MAX_WARMTH - DOSE_WARMTH)
+                {
+                    return Double.NEGATIVE_INFINITY;
+                }
+                ticks++;
+                heat += DOSE_WARMTH;
+                left--;
+            }
+
+            int chopped = chopTo - roots;
+            double chopTicks = chopped * chop;
+            double fletchTicks = fletched * fletch;
+            if(chopped > 0)
+            {
+                ticks += toTree + chopTicks + Math.max(treeToBrazier, fletchTicks);
+            }
+            else
+            {
+                ticks += Math.max(toBrazier, fletchTicks);
+            }
+
+            // The brazier may be down when we arrive, breaks while feeding cost a repair each
+            double downOnArrival = down ? 1 : Math.min(1, breakChance * ticks);
+            ticks += downOnArrival * REPAIR_TICKS;
+            int items = kindling + chopTo;
+            double feedTicks = items * feed;
+            double breaksWhileFeeding = breakChance * feedTicks;
+            double feedStart = ticks;
+            double perItem = feed * (1 + breakChance * REPAIR_TICKS);
+            ticks += feedTicks + breaksWhileFeeding * REPAIR_TICKS;
+
+            heat -= ticks / DRAIN_TICKS
+                    + HIT_CHANCE * (chopTicks + fletchTicks + feedTicks) * HIT_DAMAGE
+                    + breaksWhileFeeding * BREAK_DAMAGE;
+            if(heat < DRINK_BELOW)
+            {
+                int drinks = (int) Math.ceil((DRINK_BELOW - heat) / DOSE_WARMTH);
+                if(heat + left * DOSE_WARMTH <= 0)
+                {
+                    // Dying loses everything held, rank such plans by what they expose
+                    return -(kindling + fletched) * KINDLING_POINTS - (chopTo - fletched) * ROOT_POINTS - horizon;
+                }
+                ticks += Math.min(drinks, left) * (1 + INTERRUPT_TICKS);
+            }
+
+            // Only what is fed before the boss dies scores, kindling is fed first
+            double fed = Math.max(0, Math.min(items, Math.floor((horizon - feedStart) / perItem)));
+            int heldKindling = kindling + fletched;
+            double fedKindling = Math.min(fed, heldKindling);
+            double value = fedKindling * KINDLING_POINTS + (fed - fedKindling) * ROOT_POINTS;
+            if(ticks < horizon)
+            {
+                value += (horizon - ticks) * steadyRate;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.BrazierState;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Signal;
+import com.tonic.vitawintertodt.data.State;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.runelite.api.gameval.ItemID;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Per world, per {@link Position} round outcomes and the Thompson sampling selector
+ * built on them. Every round played at a position records the points per minute
+ * earned there, the ticks its brazier was unlit or broken, the hits taken and the
+ * roots chopped.
+ * <p>
+ * A position's older rounds decay each time it is played again, so its outcomes
+ * follow population changes. Positions not played keep their outcomes, and sampling
+ * from them is what explores. Only a position that has never been played is picked
+ * outright. The outcomes are kept in a small binary file between sessions.
+ * <p>
+ * Recording happens on the client thread and {@link #snapshot()} may be called from
+ * any thread.
+ */
+public class PositionStats
+{
+    private static final int MAGIC = 0x57545031;
+    private static final int VERSION = 1;
+
+    /**
+     * The weight kept by a position's past rounds each time a round is recorded there.
+     */
+    private static final double DECAY = 0.9;
+
+    /**
+     * The smallest spread of a position's rate, relative to its mean, so the
+     * selector never becomes certain.
+     */
+    private static final double MIN_DEVIATION = 0.1;
+
+    /**
+     * Rounds shorter than this at a position are not recorded.
+     */
+    private static final int MIN_ROUND_TICKS = 50;
+
+    private static final int TICKS_PER_MINUTE = 100;
+    private static final Position[] POSITIONS = Position.values();
+    private static final Map<Integer, Outcomes[]> WORLDS = new HashMap<>();
+
+    private static int worldId;
+    private static Outcomes[] world = outcomes(0);
+    private static boolean dirty;
+
+    private static Position roundPosition;
+    private static int roundTicks;
+    private static int roundPoints;
+    private static int roundLost;
+    private static int roundHits;
+    private static int roundRoots;
+    private static int hits;
+    private static int roots;
+
+    /**
+     * Selects the world whose outcomes are recorded and selected from.
+     *
+     * @param worldId The world number.
+     */
+    public static synchronized void setWorld(int worldId)
+    {
+        PositionStats.worldId = worldId;
+        world = outcomes(worldId);
+    }
+
+    /**
+     * Accounts one tick of the round in progress.
+     *
+     * @param state The session's state.
+     * @param position The position being played.
+     */
+    public static synchronized void onTick(State state, Position position)
+    {
+        if(state != State.GAME || position == null)
+        {
+            return;
+        }
+        if(position != roundPosition)
+        {
+            finishRound();
+            roundPosition = position;
+            hits = Signals.version(Signal.HIT);
+            roots = ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT);
+        }
+
+        roundTicks++;
+        if(BrazierState.getState(position) != BrazierState.LIT)
+        {
+            roundLost++;
+        }
+        int hitVersion = Signals.version(Signal.HIT);
+        if(hitVersion != hits)
+        {
+            roundHits++;
+            hits = hitVersion;
+        }
+        int held = ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT);
+        if(held > roots)
+        {
+            roundRoots += held - roots;
+        }
+        roots = held;
+    }
+
+    /**
+     * Credits points scored to the round in progress.
+     *
+     * @param points The points scored.
+     */
+    public static synchronized void addPoints(int points)
+    {
+        if(roundPosition != null)
+        {
+            roundPoints += points;
+        }
+    }
+
+    /**
+     * Records the round in progress, called when the boss dies.
+     */
+    public static synchronized void endRound()
+    {
+        finishRound();
+        roundPosition = null;
+        dirty = true;
+    }
+
+    /**
+     * Forgets the round in progress without recording it, called when the session stops.
+     */
+    public static synchronized void discardRound()
+    {
+        roundPosition = null;
+        clearRound();
+    }
+
+    /**
+     * Draws each position's points per minute from its outcomes and picks the best,
+     * playing any position that has never been played first.
+     *
+     * @param random The random source.
+     * @return The position, or null if no position has been played yet.
+     */
+    public static synchronized Position select(Random random)
+    {
+        List<Position> unexplored = new ArrayList<>();
+        Position best = null;
+        double bestSample = Double.NEGATIVE_INFINITY;
+        for(Position position : POSITIONS)
+        {
+            Outcomes outcomes = world[position.ordinal()];
+            if(outcomes.weight == 0)
+            {
+                unexplored.add(position);
+                continue;
+            }
+            double sample = outcomes.sample(random);
+            if(sample > bestSample)
+            {
+                best = position;
+                bestSample = sample;
+            }
+        }
+        if(best == null || unexplored.isEmpty())
+        {
+            return best;
+        }
+        return unexplored.get(random.nextInt(unexplored.size()));
+    }
+
+    /**
+     * Checks whether rounds were recorded since the last save.
+     *
+     * @return true if there is something to save.
+     */
+    public static synchronized boolean isDirty()
+    {
+        return dirty;
+    }
+
+    /**
+     * Writes every world's outcomes to a file.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static synchronized void save(Path file) throws IOException
+    {
+        Files.createDirectories(file.getParent());
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(WORLDS.size());
+            for(Map.Entry<Integer, Outcomes[]> entry : WORLDS.entrySet())
+            {
+                out.writeInt(entry.getKey());
+                out.writeInt(POSITIONS.length);
+                for(Position position : POSITIONS)
+                {
+                    out.writeUTF(position.name());
+                    entry.getValue()[position.ordinal()].write(out);
+                }
+            }
+        }
+        dirty = false;
+    }
+
+    /**
+     * Reads outcomes saved by {@link #save(Path)}, replacing any recorded so far.
+     * Positions that no longer exist are skipped.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be read or is not an outcome store.
+     */
+    public static synchronized void load(Path file) throws IOException
+    {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+            {
+                throw new IOException("Not a position store");
+            }
+            Map<Integer, Outcomes[]> worlds = new HashMap<>();
+            int count = in.readInt();
+            for(int i = 0; i < count; i++)
+            {
+                Outcomes[] outcomes = newOutcomes();
+                worlds.put(in.readInt(), outcomes);
+                int positions = in.readInt();
+                for(int p = 0; p < positions; p++)
+                {
+                    String name = in.readUTF();
+                    Outcomes read = Outcomes.read(in);
+                    for(Position position : POSITIONS)
+                    {
+                        if(position.name().equals(name))
+                        {
+                            outcomes[position.ordinal()] = read;
+                        }
+                    }
+                }
+            }
+            WORLDS.clear();
+            WORLDS.putAll(worlds);
+            world = outcomes(worldId);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Forgets every world's outcomes.
+     */
+    public static synchronized void reset()
+    {
+        WORLDS.clear();
+        world = outcomes(worldId);
+        discardRound();
+        dirty = false;
+    }
+
+    /**
+     * Writes the current world's outcomes and the round in progress, for a
+     * {@link SessionJournal} to start its replay from. Hits are written as the number
+     * not yet counted, since signal versions differ between runs.
+     *
+     * @param out The output.
+     * @throws IOException If the output cannot be written.
+     */
+    static synchronized void writeLearned(DataOutputStream out) throws IOException
+    {
+        for(Outcomes outcomes : world)
+        {
+            outcomes.write(out);
+        }
+        out.writeByte(roundPosition == null ? -1 : roundPosition.ordinal());
+        out.writeInt(roundTicks);
+        out.writeInt(roundPoints);
+        out.writeInt(roundLost);
+        out.writeInt(roundHits);
+        out.writeInt(roundRoots);
+        out.writeInt(Signals.version(Signal.HIT) - hits);
+        out.writeInt(roots);
+    }
+
+    /**
+     * Replaces the current world's outcomes and the round in progress with those written
+     * by {@link #writeLearned(DataOutputStream)}.
+     *
+     * @param in The input.
+     * @throws IOException If the input cannot be read.
+     */
+    static synchronized void readLearned(DataInputStream in) throws IOException
+    {
+        for(int i = 0; i < world.length; i++)
+        {
+            world[i] = Outcomes.read(in);
+        }
+        int ordinal = in.readByte();
+        roundPosition = ordinal < 0 ? null : POSITIONS[ordinal];
+        roundTicks = in.readInt();
+        roundPoints = in.readInt();
+        roundLost = in.readInt();
+        roundHits = in.readInt();
+        roundRoots = in.readInt();
+        hits = Signals.version(Signal.HIT) - in.readInt();
+        roots = in.readInt();
+    }
+
+    /**
+     * Takes a copy of the current world's outcomes.
+     *
+     * @return One row per position.
+     */
+    public static synchronized List<Row> snapshot()
+    {
+        List<Row> rows = new ArrayList<>();
+        for(Position position : POSITIONS)
+        {
+            Outcomes outcomes = world[position.ordinal()];
+            double minutes = outcomes.ticks / TICKS_PER_MINUTE;
+            rows.add(new Row(
+                    position,
+                    outcomes.rounds,
+                    outcomes.weight,
+                    minutes == 0 ? 0 : outcomes.points / minutes,
+                    outcomes.ticks == 0 ? 0 : outcomes.lost / outcomes.ticks,
+                    minutes == 0 ? 0 : outcomes.hits / minutes,
+                    minutes == 0 ? 0 : outcomes.roots / minutes
+            ));
+        }
+        return rows;
+    }
+
+    private static void finishRound()
+    {
+        if(roundPosition != null && roundTicks >= MIN_ROUND_TICKS)
+        {
+            world[roundPosition.ordinal()].record(roundTicks, roundPoints, roundLost, roundHits, roundRoots);
+        }
+        clearRound();
+    }
+
+    private static void clearRound()
+    {
+        roundTicks = 0;
+        roundPoints = 0;
+        roundLost = 0;
+        roundHits = 0;
+        roundRoots = 0;
+    }
+
+    private static Outcomes[] outcomes(int worldId)
+    {
+        return WORLDS.computeIfAbsent(worldId, w -> newOutcomes());
+    }
+
+    private static Outcomes[] newOutcomes()
+    {
+        Outcomes[] outcomes = new Outcomes[POSITIONS.length];
+        for(int i = 0; i < outcomes.length; i++)
+        {
+            outcomes[i] = new Outcomes();
+        }
+        return outcomes;
+    }
+
+    /**
+     * The decayed outcomes of one position's rounds.
+     */
+    private static class Outcomes
+    {
+        private int rounds;
+        private double weight;
+        private double rate;
+        private double rateSquares;
+        private double ticks;
+        private double points;
+        private double lost;
+        private double hits;
+        private double roots;
+
+        private void record(int roundTicks, int roundPoints, int roundLost, int roundHits, int roundRoots)
+        {
+            double perMinute = roundPoints * (double) TICKS_PER_MINUTE / roundTicks;
+            decay();
+            rounds++;
+            weight += 1;
+            rate += perMinute;
+            rateSquares += perMinute * perMinute;
+            ticks += roundTicks;
+            points += roundPoints;
+            lost += roundLost;
+            hits += roundHits;
+            roots += roundRoots;
+        }
+
+        private void decay()
+        {
+            weight *= DECAY;
+            rate *= DECAY;
+            rateSquares *= DECAY;
+            ticks *= DECAY;
+            points *= DECAY;
+            lost *= DECAY;
+            hits *= DECAY;
+            roots *= DECAY;
+        }
+
+        /**
+         * Draws a plausible mean points per minute from a normal approximation of
+         * the posterior, wider the fewer rounds back it rests on.
+         */
+        private double sample(Random random)
+        {
+            double mean = rate / weight;
+            double deviation = MIN_DEVIATION * mean;
+            double variance = Math.max(rateSquares / weight - mean * mean, deviation * deviation);
+            return mean + Math.sqrt(variance / weight) * random.nextGaussian();
+        }
+
+        private void write(DataOutputStream out) throws IOException
+        {
+            out.writeInt(rounds);
+            out.writeDouble(weight);
+            out.writeDouble(rate);
+            out.writeDouble(rateSquares);
+            out.writeDouble(ticks);
+            out.writeDouble(points);
+            out.writeDouble(lost);
+            out.writeDouble(hits);
+            out.writeDouble(roots);
+        }
+
+        private static Outcomes read(DataInputStream in) throws IOException
+        {
+            Outcomes outcomes = new Outcomes();
+            outcomes.rounds = in.readInt();
+            outcomes.weight = in.readDouble();
+            outcomes.rate = in.readDouble();
+            outcomes.rateSquares = in.readDouble();
+            outcomes.ticks = in.readDouble();
+            outcomes.points = in.readDouble();
+            outcomes.lost = in.readDouble();
+            outcomes.hits = in.readDouble();
+            outcomes.roots = in.readDouble();
+            return outcomes;
+        }
+    }
+
+    /**
+     * The outcomes of one position at the time of a snapshot.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Row
+    {
+        private final Position position;
+        private final int rounds;
+        private final double weight;
+        private final double pointsPerMinute;
+        private final double lostShare;
+        private final double hitsPerMinute;
+        private final double rootsPerMinute;
+    }
+}
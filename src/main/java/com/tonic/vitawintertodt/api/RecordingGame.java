@@ -0,0 +1,133 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Action;
+import com.tonic.vitawintertodt.data.Position;
+import lombok.Getter;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * {@link WinterGame} that passes everything through to another game while remembering
+ * the last action issued and random number drawn, so a tick can be journaled or compared.
+ */
+@Getter
+public class RecordingGame implements WinterGame
+{
+    private final WinterGame game;
+    private Action action = Action.NONE;
+    private int target;
+    private int option;
+    private String optionName;
+    private int actions;
+    private double lastRandom = Double.NaN;
+
+    /**
+     * Creates a recording game.
+     *
+     * @param game The game to pass everything through to.
+     */
+    public RecordingGame(WinterGame game)
+    {
+        this.game = game;
+    }
+
+    /**
+     * Forgets the recorded actions, called at the start of every tick.
+     */
+    public void clearActions()
+    {
+        action = Action.NONE;
+        target = 0;
+        option = 0;
+        optionName = null;
+        actions = 0;
+        lastRandom = Double.NaN;
+    }
+
+    @Override
+    public int getTickCount()
+    {
+        return game.getTickCount();
+    }
+
+    @Override
+    public int getExperience(Skill skill)
+    {
+        return game.getExperience(skill);
+    }
+
+    @Override
+    public int getLevel(Skill skill)
+    {
+        return game.getLevel(skill);
+    }
+
+    @Override
+    public WorldPoint getPlayerLocation()
+    {
+        return game.getPlayerLocation();
+    }
+
+    @Override
+    public boolean isIdle()
+    {
+        return game.isIdle();
+    }
+
+    @Override
+    public boolean isMoving()
+    {
+        return game.isMoving();
+    }
+
+    @Override
+    public void walkTo(WorldPoint destination)
+    {
+        record(Action.WALK, destination.getX(), destination.getY(), null);
+        game.walkTo(destination);
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, String action)
+    {
+        record(Action.OBJECT, objectId, -1, action);
+        game.interactObject(objectId, position, action);
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, int action)
+    {
+        record(Action.OBJECT, objectId, action, null);
+        game.interactObject(objectId, position, action);
+    }
+
+    @Override
+    public boolean interactItem(int itemId, int action)
+    {
+        record(Action.ITEM, itemId, action, null);
+        return game.interactItem(itemId, action);
+    }
+
+    @Override
+    public void useItemOn(int itemId, int targetId)
+    {
+        record(Action.USE_ON, itemId, targetId, null);
+        game.useItemOn(itemId, targetId);
+    }
+
+    @Override
+    public double random()
+    {
+        lastRandom = game.random();
+        return lastRandom;
+    }
+
+    private void record(Action action, int target, int option, String optionName)
+    {
+        this.action = action;
+        this.target = target;
+        this.option = option;
+        this.optionName = optionName;
+        actions++;
+    }
+}
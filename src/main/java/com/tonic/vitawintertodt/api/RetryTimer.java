@@ -0,0 +1,131 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Activity;
+import com.tonic.vitawintertodt.data.Signal;
+
+/**
+ * Per step retry bookkeeping for one repeated action. The step reports when it issues
+ * the action and when it sees a response, the timer feeds the observed latencies to
+ * {@link ActionTiming} and tells the step how long to wait before issuing it again.
+ * <p>
+ * Interruptions end the wait at once: taking a hit cancels the action in any phase and
+ * the player's action stopping cancels it once it has produced a response.
+ */
+public class RetryTimer
+{
+    private static final int IDLE = 0;
+    private static final int AWAITING_START = 1;
+    private static final int IN_PROGRESS = 2;
+    private static final int STARTED = 3;
+
+    private final Activity activity;
+    private int phase = IDLE;
+    private int last;
+    private int hits;
+    private int stops;
+
+    /**
+     * Creates a timer for the given action.
+     *
+     * @param activity The action.
+     */
+    public RetryTimer(Activity activity)
+    {
+        this.activity = activity;
+    }
+
+    /**
+     * Forgets the action, called when the step is entered or exited.
+     */
+    public void reset()
+    {
+        phase = IDLE;
+    }
+
+    /**
+     * Records that the action was just issued.
+     *
+     * @param tick The current tick.
+     */
+    public void issued(int tick)
+    {
+        phase = AWAITING_START;
+        last = tick;
+        hits = Signals.version(Signal.HIT);
+        stops = Signals.version(Signal.STOPPED);
+    }
+
+    /**
+     * Records a periodic response such as an xp drop, after which the next response is
+     * expected within the learned cadence.
+     *
+     * @param tick The current tick.
+     */
+    public void progressed(int tick)
+    {
+        if(phase == AWAITING_START)
+        {
+            ActionTiming.recordStart(activity, tick - last);
+        }
+        else if(phase == IN_PROGRESS)
+        {
+            ActionTiming.recordCadence(activity, tick - last);
+        }
+        phase = IN_PROGRESS;
+        last = tick;
+        stops = Signals.version(Signal.STOPPED);
+    }
+
+    /**
+     * Records that the issued action visibly started, e.g. by the player animating.
+     * Unlike {@link #progressed(int)} no further response is waited for, so the action
+     * may be issued again as soon as the step sees it has stopped.
+     *
+     * @param tick The current tick.
+     */
+    public void started(int tick)
+    {
+        if(phase == AWAITING_START)
+        {
+            ActionTiming.recordStart(activity, tick - last);
+            phase = STARTED;
+        }
+    }
+
+    /**
+     * Gets how many more ticks to wait before issuing the action again.
+     *
+     * @param tick The current tick.
+     * @return The remaining ticks, 0 or less if the action should be issued now.
+     */
+    public int remaining(int tick)
+    {
+        if(isInterrupted())
+        {
+            return 0;
+        }
+        switch(phase)
+        {
+            case AWAITING_START:
+                return ActionTiming.getStartDelay(activity) - (tick - last);
+            case IN_PROGRESS:
+                return ActionTiming.getCadenceDelay(activity) - (tick - last);
+        }
+        return 0;
+    }
+
+    /**
+     * Checks whether the action was interrupted since it was issued or last responded.
+     *
+     * @return true if interrupted.
+     */
+    public boolean isInterrupted()
+    {
+        if(phase == IDLE)
+        {
+            return false;
+        }
+        return Signals.version(Signal.HIT) != hits
+                || (phase == IN_PROGRESS && Signals.version(Signal.STOPPED) != stops);
+    }
+}
@@ -0,0 +1,164 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Activity;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Strategy;
+import net.runelite.api.gameval.ItemID;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Sizes each chop, fletch and feed cycle of the gameplay loop. The boss's remaining
+ * energy and the observed rate it drops at give the ticks left in the round, and the
+ * learned {@link ActionTiming} cadences give how long each root takes to chop, fletch
+ * and feed. Early in a round the batch fills the free inventory to save walks, near
+ * the end it shrinks to what can still be converted before the boss dies.
+ * <p>
+ * What counts as converted depends on the {@link Strategy}: points need the roots
+ * fletched and fed, firemaking xp only fed and fletching xp only fletched.
+ */
+public class RootBatch
+{
+    private static final double DECAY = 0.9;
+
+    private static int sampleTick;
+    private static int sampleEnergy = -1;
+    private static double drained;
+    private static double elapsed;
+
+    /**
+     * Gets how many roots to gather before converting and feeding them.
+     *
+     * @param position The position being played.
+     * @param strategy The strategy being played.
+     * @return The number of roots to hold, at least one while there is room for it.
+     */
+    public static int getTarget(Position position, Strategy strategy)
+    {
+        int capacity = ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT) + ItemCounts.freeSlots();
+        int remaining = getRemainingTicks();
+        if(remaining == Integer.MAX_VALUE)
+        {
+            return capacity;
+        }
+
+        double chop = ActionTiming.getMeanCadence(Activity.CHOP);
+        double fletch = ActionTiming.getMeanCadence(Activity.FLETCH);
+        double feed = ActionTiming.getMeanCadence(Activity.FEED);
+        int target;
+        switch(strategy)
+        {
+            case FIREMAKING:
+                target = (int) ((remaining - WinterAPI.runTicks(position.getTree(), position.getBrazier())) / (chop + feed));
+                break;
+            case FLETCHING:
+                target = (int) (remaining / (chop + fletch));
+                break;
+            default:
+                int budget = remaining - WinterAPI.runTicks(position.getTree(), position.getBrazier());
+                target = (int) (budget / (chop + fletch + feed));
+                if(target < 1)
+                {
+                    // Too late to fletch, raw roots still score
+                    target = (int) (budget / (chop + feed));
+                }
+                break;
+        }
+        return Math.min(capacity, Math.max(1, target));
+    }
+
+    /**
+     * Checks whether fletching the roots still held would leave kindling unfed when
+     * the boss dies, in which case the rest should be fed raw.
+     *
+     * @return true if fletching should stop.
+     */
+    public static boolean shouldFeedRaw()
+    {
+        int remaining = getRemainingTicks();
+        if(remaining == Integer.MAX_VALUE)
+        {
+            return false;
+        }
+        int roots = ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT);
+        int kindling = ItemCounts.inventory(ItemID.WINT_BRUMA_KINDLING);
+        double needed = roots * ActionTiming.getMeanCadence(Activity.FLETCH)
+                + (roots + kindling) * ActionTiming.getMeanCadence(Activity.FEED);
+        return needed > remaining;
+    }
+
+    /**
+     * Estimates the ticks left before the boss dies, sampling its energy to learn how
+     * fast it drops.
+     *
+     * @return The remaining ticks, or Integer.MAX_VALUE if unknown.
+     */
+    public static int getRemainingTicks()
+    {
+        int energy = WinterStatus.getEnergy();
+        if(energy < 0)
+        {
+            return Integer.MAX_VALUE;
+        }
+
+        int tick = WinterAPI.getGame().getTickCount();
+        if(sampleEnergy < 0 || energy > sampleEnergy || tick < sampleTick)
+        {
+            sampleTick = tick;
+            sampleEnergy = energy;
+        }
+        else if(energy < sampleEnergy)
+        {
+            drained = drained * DECAY + (sampleEnergy - energy);
+            elapsed = elapsed * DECAY + (tick - sampleTick);
+            sampleTick = tick;
+            sampleEnergy = energy;
+        }
+
+        if(drained <= 0)
+        {
+            return Integer.MAX_VALUE;
+        }
+        return (int) (energy * elapsed / drained);
+    }
+
+    /**
+     * Forgets the learned drain rate.
+     */
+    public static void reset()
+    {
+        sampleEnergy = -1;
+        drained = 0;
+        elapsed = 0;
+    }
+
+    /**
+     * Writes the learned drain rate, for a {@link SessionJournal} to start its replay from.
+     *
+     * @param out The output.
+     * @throws IOException If the output cannot be written.
+     */
+    static void write(DataOutputStream out) throws IOException
+    {
+        out.writeInt(sampleTick);
+        out.writeInt(sampleEnergy);
+        out.writeDouble(drained);
+        out.writeDouble(elapsed);
+    }
+
+    /**
+     * Replaces the learned drain rate with the one written by {@link #write(DataOutputStream)}.
+     *
+     * @param in The input.
+     * @throws IOException If the input cannot be read.
+     */
+    static void read(DataInputStream in) throws IOException
+    {
+        sampleTick = in.readInt();
+        sampleEnergy = in.readInt();
+        drained = in.readDouble();
+        elapsed = in.readDouble();
+    }
+}
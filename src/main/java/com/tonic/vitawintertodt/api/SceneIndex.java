@@ -0,0 +1,304 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.data.wrappers.TileObjectEx;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Signal;
+import net.runelite.api.Client;
+import net.runelite.api.GameObject;
+import net.runelite.api.Scene;
+import net.runelite.api.Tile;
+import net.runelite.api.TileObject;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.gameval.ObjectID;
+
+import java.util.Arrays;
+
+/**
+ * An index of the Wintertodt scene objects the plugin interacts with, kept up to
+ * date from object spawn and despawn events so lookups never have to scan the scene.
+ * <p>
+ * Objects are bucketed by id and each bucket caches its nearest object for every
+ * {@link Position}, making "nearest to position" lookups constant time.
+ */
+public class SceneIndex
+{
+    private static final int[] TRACKED = sorted(
+            ObjectID.WINT_BRAZIER,
+            ObjectID.WINT_BRAZIER_LIT,
+            ObjectID.WINT_BRAZIER_BROKEN,
+            ObjectID.WINT_ROOTS,
+            ObjectID.WINT_HERB_ROOTS,
+            ObjectID.WINT_CHEST_TINDERBOX,
+            ObjectID.WINT_CHEST_KNIFE,
+            ObjectID.WINT_CHEST_HAMMER,
+            ObjectID.WINT_CHEST_AXE,
+            ObjectID.WINT_CHEST_VIAL
+    );
+    private static final Bucket[] BUCKETS = new Bucket[TRACKED.length];
+
+    static
+    {
+        for(int i = 0; i < BUCKETS.length; i++)
+        {
+            BUCKETS[i] = new Bucket();
+        }
+    }
+
+    /**
+     * Adds a spawned object to the index if it is one we track.
+     *
+     * @param object The spawned object.
+     */
+    public static void onSpawned(TileObject object)
+    {
+        Bucket bucket = bucket(object.getId());
+        if(bucket != null && bucket.add(object))
+        {
+            Signals.mark(Signal.SCENE);
+        }
+    }
+
+    /**
+     * Removes a despawned object from the index.
+     *
+     * @param object The despawned object.
+     */
+    public static void onDespawned(TileObject object)
+    {
+        Bucket bucket = bucket(object.getId());
+        if(bucket != null && bucket.remove(object))
+        {
+            Signals.mark(Signal.SCENE);
+        }
+    }
+
+    /**
+     * Clears the index, used when the scene is unloaded.
+     */
+    public static void clear()
+    {
+        for(Bucket bucket : BUCKETS)
+        {
+            bucket.clear();
+        }
+        Signals.mark(Signal.SCENE);
+    }
+
+    /**
+     * Rebuilds the index from the currently loaded scene, when the plugin starts with a
+     * scene already loaded and after each scene load. In between the spawn events keep
+     * it current. Must be called on the client thread.
+     *
+     * @param client The client.
+     */
+    public static void rebuild(Client client)
+    {
+        clear();
+        Scene scene = client.getScene();
+        if(scene == null)
+        {
+            return;
+        }
+        Tile[][] tiles = scene.getTiles()[client.getPlane()];
+        for(Tile[] column : tiles)
+        {
+            for(Tile tile : column)
+            {
+                if(tile == null)
+                {
+                    continue;
+                }
+                for(GameObject object : tile.getGameObjects())
+                {
+                    if(object != null)
+                    {
+                        onSpawned(object);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the object with the given id nearest to the given position.
+     *
+     * @param id The object id.
+     * @param position The position.
+     * @return The nearest object, or null if none is loaded.
+     */
+    public static TileObjectEx nearest(int id, Position position)
+    {
+        Bucket bucket = bucket(id);
+        return bucket == null ? null : bucket.wrap(bucket.nearest[position.ordinal()]);
+    }
+
+    /**
+     * Gets the distance from the given position to the nearest object with the given id.
+     *
+     * @param id The object id.
+     * @param position The position.
+     * @return The distance in tiles, or Integer.MAX_VALUE if none is loaded.
+     */
+    public static int distance(int id, Position position)
+    {
+        Bucket bucket = bucket(id);
+        return bucket == null ? Integer.MAX_VALUE : bucket.nearestDistance[position.ordinal()];
+    }
+
+    /**
+     * Gets the tile of the object with the given id nearest to the given position.
+     *
+     * @param id The object id.
+     * @param position The position.
+     * @return The tile, or null if none is loaded.
+     */
+    public static WorldPoint location(int id, Position position)
+    {
+        Bucket bucket = bucket(id);
+        TileObject object = bucket == null ? null : bucket.nearest[position.ordinal()];
+        return object == null ? null : object.getWorldLocation();
+    }
+
+    private static Bucket bucket(int id)
+    {
+        int index = Arrays.binarySearch(TRACKED, id);
+        return index < 0 ? null : BUCKETS[index];
+    }
+
+    private static int[] sorted(int... ids)
+    {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * The loaded objects sharing one id, along with their nearest object per position.
+     */
+    private static class Bucket
+    {
+        private static final Position[] POSITIONS = Position.values();
+
+        private TileObject[] objects = new TileObject[4];
+        private TileObjectEx[] wrapped = new TileObjectEx[4];
+        private WorldPoint[] locations = new WorldPoint[4];
+        private int size;
+        private final TileObject[] nearest = new TileObject[POSITIONS.length];
+        private final int[] nearestDistance = new int[POSITIONS.length];
+
+        private Bucket()
+        {
+            Arrays.fill(nearestDistance, Integer.MAX_VALUE);
+        }
+
+        private boolean add(TileObject object)
+        {
+            if(indexOf(object) >= 0)
+            {
+                return false;
+            }
+            if(size == objects.length)
+            {
+                objects = Arrays.copyOf(objects, size * 2);
+                wrapped = Arrays.copyOf(wrapped, size * 2);
+                locations = Arrays.copyOf(locations, size * 2);
+            }
+            WorldPoint location = object.getWorldLocation();
+            objects[size] = object;
+            locations[size] = location;
+            size++;
+
+            for(Position position : POSITIONS)
+            {
+                int distance = location.distanceTo(position.getBrazier());
+                if(distance < nearestDistance[position.ordinal()])
+                {
+                    nearest[position.ordinal()] = object;
+                    nearestDistance[position.ordinal()] = distance;
+                }
+            }
+            return true;
+        }
+
+        private boolean remove(TileObject object)
+        {
+            int index = indexOf(object);
+            if(index < 0)
+            {
+                return false;
+            }
+            size--;
+            objects[index] = objects[size];
+            wrapped[index] = wrapped[size];
+            locations[index] = locations[size];
+            objects[size] = null;
+            wrapped[size] = null;
+            locations[size] = null;
+
+            for(Position position : POSITIONS)
+            {
+                if(nearest[position.ordinal()] == object)
+                {
+                    recompute(position);
+                }
+            }
+            return true;
+        }
+
+        private void recompute(Position position)
+        {
+            TileObject best = null;
+            int bestDistance = Integer.MAX_VALUE;
+            for(int i = 0; i < size; i++)
+            {
+                int distance = locations[i].distanceTo(position.getBrazier());
+                if(distance < bestDistance)
+                {
+                    best = objects[i];
+                    bestDistance = distance;
+                }
+            }
+            nearest[position.ordinal()] = best;
+            nearestDistance[position.ordinal()] = bestDistance;
+        }
+
+        /**
+         * Gets the interactable wrapper of an indexed object, created on first use
+         * so the index itself can be fed without a live client.
+         */
+        private TileObjectEx wrap(TileObject object)
+        {
+            int index = object == null ? -1 : indexOf(object);
+            if(index < 0)
+            {
+                return null;
+            }
+            if(wrapped[index] == null)
+            {
+                wrapped[index] = new TileObjectEx(object);
+            }
+            return wrapped[index];
+        }
+
+        private int indexOf(TileObject object)
+        {
+            for(int i = 0; i < size; i++)
+            {
+                if(objects[i] == object)
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void clear()
+        {
+            Arrays.fill(objects, null);
+            Arrays.fill(wrapped, null);
+            Arrays.fill(locations, null);
+            size = 0;
+            Arrays.fill(nearest, null);
+            Arrays.fill(nearestDistance, Integer.MAX_VALUE);
+        }
+    }
+}
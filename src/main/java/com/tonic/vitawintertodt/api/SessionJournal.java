@@ -0,0 +1,360 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.BrazierState;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Signal;
+import com.tonic.vitawintertodt.data.State;
+import com.tonic.vitawintertodt.data.Strategy;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.gameval.ItemID;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Append only binary journal of every tick the plugin plays. Each tick is one fixed size
+ * record, written into a memory mapped file without allocating, holding the inputs the
+ * handlers saw, including which {@link Signals} were marked, the state and step they were
+ * in and the action they issued. Journals can be played back offline with {@link JournalReader}.
+ * <p>
+ * The file starts with a header holding the record count, a table of the step and
+ * option names the records refer to by index and a snapshot of what the handlers had
+ * learned when the first record was taken, followed by the records. The snapshot
+ * covers {@link ActionTiming}, {@link RootBatch}, {@link Planner}, {@link BrazierWatch}
+ * and the current world's {@link PositionStats}, so a journal started mid-session
+ * replays from the same learned state as the original run.
+ */
+public class SessionJournal implements Closeable
+{
+    static final int MAGIC = 0x57544A31;
+    static final int VERSION = 5;
+    static final int HEADER_SIZE = 8192;
+    static final int RECORD_SIZE = 128;
+    static final int MAX_POSITIONS = 8;
+
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 4;
+    static final int HEADER_RECORD_SIZE = 8;
+    static final int HEADER_COUNT = 12;
+    static final int HEADER_NAME_COUNT = 16;
+    static final int HEADER_LEARNED_SIZE = 20;
+    static final int HEADER_NAMES = 24;
+    static final int HEADER_LEARNED = 4096;
+
+    static final int TICK = 0;
+    static final int WARMTH = 4;
+    static final int RESPAWN_DELAY = 8;
+    static final int ENERGY = 12;
+    static final int EXPERIENCE = 16;
+    static final int X = 32;
+    static final int Y = 34;
+    static final int PLANE = 36;
+    static final int FLAGS = 37;
+    static final int STATE = 38;
+    static final int POSITION = 39;
+    static final int BRAZIERS = 40;
+    static final int STEP = 48;
+    static final int OPTION_NAME = 50;
+    static final int ACTION = 52;
+    static final int ACTIONS = 53;
+    static final int MARKED = 54;
+    static final int TARGET = 56;
+    static final int OPTION = 60;
+    static final int AXE = 64;
+    static final int COUNTS = 68;
+    static final int FREE_SLOTS = 90;
+    static final int STRATEGY = 91;
+    static final int DISPATCH_NANOS = 96;
+    static final int RANDOM = 104;
+
+    static final int FLAG_MOVING = 1;
+    static final int FLAG_IDLE = 2;
+
+    /**
+     * The skills whose experience is recorded, in record order.
+     */
+    static final Skill[] SKILLS = {Skill.FIREMAKING, Skill.FLETCHING, Skill.WOODCUTTING, Skill.HERBLORE};
+
+    /**
+     * The items whose inventory count is recorded, in record order. Axes are recorded
+     * separately as the id of the one held.
+     */
+    static final int[] ITEMS = {
+            ItemID.WINT_BRUMA_ROOT,
+            ItemID.WINT_BRUMA_KINDLING,
+            ItemID.WINT_HERB,
+            ItemID.WINT_VIAL,
+            ItemID.WINT_POTION1,
+            ItemID.WINT_POTION2,
+            ItemID.WINT_POTION3,
+            ItemID.WINT_POTION4,
+            ItemID.KNIFE,
+            ItemID.TINDERBOX,
+            ItemID.HAMMER
+    };
+
+    private static final Position[] POSITIONS = Position.values();
+    private static final Signal[] SIGNALS = Signal.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Map<String, Integer> names = new HashMap<>();
+    private final int[] versions = new int[SIGNALS.length];
+    private int namesEnd = HEADER_NAMES;
+    private int count;
+    private boolean learned;
+
+    private SessionJournal(FileChannel channel, int capacity) throws IOException
+    {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(HEADER_MAGIC, MAGIC);
+        buffer.putInt(HEADER_VERSION, VERSION);
+        buffer.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+        buffer.putInt(HEADER_COUNT, 0);
+        buffer.putInt(HEADER_NAME_COUNT, 0);
+        buffer.putInt(HEADER_LEARNED_SIZE, 0);
+    }
+
+    /**
+     * Creates a new journal file in the given directory, deleting the oldest journals
+     * there so at most the given number remain.
+     *
+     * @param directory The journal directory.
+     * @param capacity The number of ticks the journal can hold.
+     * @param keep The number of journals to keep, including the new one.
+     * @return The journal.
+     * @throws IOException If the file cannot be created.
+     */
+    public static SessionJournal create(Path directory, int capacity, int keep) throws IOException
+    {
+        Files.createDirectories(directory);
+        try(Stream<Path> files = Files.list(directory))
+        {
+            Path[] journals = files
+                    .filter(file -> file.getFileName().toString().endsWith(".wtj"))
+                    .sorted()
+                    .toArray(Path[]::new);
+            for(int i = 0; i < journals.length - keep + 1; i++)
+            {
+                Files.deleteIfExists(journals[i]);
+            }
+        }
+        Path file = directory.resolve("journal-" + System.currentTimeMillis() + ".wtj");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new SessionJournal(channel, capacity);
+    }
+
+    /**
+     * Checks whether the journal has room for another tick.
+     *
+     * @return true if the journal is full.
+     */
+    public boolean isFull()
+    {
+        return count == capacity;
+    }
+
+    /**
+     * Gets how many more ticks the journal can hold.
+     *
+     * @return The free record count.
+     */
+    public int remaining()
+    {
+        return capacity - count;
+    }
+
+    /**
+     * Writes the inputs the next tick's dispatch will see, called just before dispatching.
+     *
+     * @param game The game the tick runs against.
+     */
+    public void observe(WinterGame game)
+    {
+        if(isFull())
+        {
+            return;
+        }
+        if(!learned)
+        {
+            writeLearned();
+            learned = true;
+        }
+        int at = HEADER_SIZE + count * RECORD_SIZE;
+        buffer.putInt(at + TICK, game.getTickCount());
+        buffer.putInt(at + WARMTH, WinterStatus.getWarmth());
+        buffer.putInt(at + RESPAWN_DELAY, WinterStatus.getRespawnDelay());
+        buffer.putInt(at + ENERGY, WinterStatus.getEnergy());
+        for(int i = 0; i < SKILLS.length; i++)
+        {
+            buffer.putInt(at + EXPERIENCE + i * 4, game.getExperience(SKILLS[i]));
+        }
+
+        WorldPoint location = game.getPlayerLocation();
+        buffer.putShort(at + X, (short) (location == null ? -1 : location.getX()));
+        buffer.putShort(at + Y, (short) (location == null ? -1 : location.getY()));
+        buffer.put(at + PLANE, (byte) (location == null ? -1 : location.getPlane()));
+        buffer.put(at + FLAGS, (byte) ((game.isMoving() ? FLAG_MOVING : 0) | (game.isIdle() ? FLAG_IDLE : 0)));
+        for(int i = 0; i < MAX_POSITIONS; i++)
+        {
+            BrazierState brazier = i < POSITIONS.length ? BrazierState.getState(POSITIONS[i]) : BrazierState.NONE;
+            buffer.put(at + BRAZIERS + i, (byte) brazier.ordinal());
+        }
+        buffer.putInt(at + AXE, heldAxe());
+        for(int i = 0; i < ITEMS.length; i++)
+        {
+            buffer.putShort(at + COUNTS + i * 2, (short) ItemCounts.inventory(ITEMS[i]));
+        }
+        buffer.put(at + FREE_SLOTS, (byte) ItemCounts.freeSlots());
+
+        int signals = 0;
+        for(Signal signal : SIGNALS)
+        {
+            int version = Signals.version(signal);
+            if(version != versions[signal.ordinal()])
+            {
+                signals |= 1 << signal.ordinal();
+                versions[signal.ordinal()] = version;
+            }
+        }
+        buffer.put(at + MARKED, (byte) signals);
+    }
+
+    /**
+     * Completes the record started by {@link #observe(WinterGame)} with the outcome of the
+     * tick that was just dispatched and appends it.
+     *
+     * @param state The session's state after the tick.
+     * @param position The session's position after the tick.
+     * @param strategy The strategy the session plays.
+     * @param game The game the tick's actions were issued through.
+     * @param dispatchNanos How long the tick's dispatch took.
+     * @return false if the journal is full and nothing was written.
+     */
+    public boolean record(State state, Position position, Strategy strategy, RecordingGame game, long dispatchNanos)
+    {
+        if(isFull())
+        {
+            return false;
+        }
+        int at = HEADER_SIZE + count * RECORD_SIZE;
+        buffer.put(at + STATE, (byte) (state == null ? -1 : state.ordinal()));
+        buffer.put(at + POSITION, (byte) (position == null ? -1 : position.ordinal()));
+        buffer.put(at + STRATEGY, (byte) strategy.ordinal());
+        buffer.putShort(at + STEP, (short) name(TickMetrics.getStep()));
+        buffer.putShort(at + OPTION_NAME, (short) name(game.getOptionName()));
+        buffer.put(at + ACTION, (byte) game.getAction().ordinal());
+        buffer.put(at + ACTIONS, (byte) Math.min(game.getActions(), Byte.MAX_VALUE));
+        buffer.putInt(at + TARGET, game.getTarget());
+        buffer.putInt(at + OPTION, game.getOption());
+        buffer.putLong(at + DISPATCH_NANOS, dispatchNanos);
+        buffer.putDouble(at + RANDOM, game.getLastRandom());
+
+        count++;
+        buffer.putInt(HEADER_COUNT, count);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Gets the index of a name in the header's name table, adding it the first time it is seen.
+     *
+     * @param name The name, or null.
+     * @return The index, or -1 for null or if the table is full.
+     */
+    private int name(String name)
+    {
+        if(name == null)
+        {
+            return -1;
+        }
+        Integer index = names.get(name);
+        if(index != null)
+        {
+            return index;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if(namesEnd + 2 + bytes.length > HEADER_LEARNED)
+        {
+            return -1;
+        }
+        buffer.putShort(namesEnd, (short) bytes.length);
+        for(int i = 0; i < bytes.length; i++)
+        {
+            buffer.put(namesEnd + 2 + i, bytes[i]);
+        }
+        namesEnd += 2 + bytes.length;
+        index = names.size();
+        names.put(name, index);
+        buffer.putInt(HEADER_NAME_COUNT, names.size());
+        return index;
+    }
+
+    /**
+     * Writes the learned state snapshot into the header, leaving it empty if it does
+     * not fit. Taken once, before the first record, since it allocates.
+     */
+    private void writeLearned()
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes))
+        {
+            ActionTiming.write(out);
+            RootBatch.write(out);
+            Planner.write(out);
+            BrazierWatch.write(out);
+            PositionStats.writeLearned(out);
+        }
+        catch(IOException e)
+        {
+            // Only thrown by the stream, which writes to memory
+            throw new UncheckedIOException(e);
+        }
+        byte[] snapshot = bytes.toByteArray();
+        if(snapshot.length > HEADER_SIZE - HEADER_LEARNED)
+        {
+            return;
+        }
+        for(int i = 0; i < snapshot.length; i++)
+        {
+            buffer.put(HEADER_LEARNED + i, snapshot[i]);
+        }
+        buffer.putInt(HEADER_LEARNED_SIZE, snapshot.length);
+    }
+
+    private static int heldAxe()
+    {
+        for(int axe : WinterAPI.AXES)
+        {
+            if(ItemCounts.inventory(axe) > 0 || ItemCounts.worn(axe) > 0)
+            {
+                return axe;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,115 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Signal;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Guards a step condition so a false result is reused until one of the signals
+ * the condition depends on has changed, or a requested wake up tick is reached.
+ * <pre>
+ * SignalGate gate = new SignalGate(() -> ItemCounts.inventory(ItemID.WINT_HERB) >= 5, Signal.INVENTORY);
+ * addDelayUntil(gate::test);
+ * </pre>
+ * The guarded condition must read nothing outside of the declared signals,
+ * otherwise it may be skipped while its real result has changed.
+ */
+public class SignalGate
+{
+    private final BooleanSupplier condition;
+    private final Signal[] signals;
+    private final int[] seen;
+    private int wakeTick = Integer.MAX_VALUE;
+
+    /**
+     * Creates a gate for a condition that is checked manually through {@link #changed()}.
+     *
+     * @param signals The signals the guarded condition reads.
+     */
+    public SignalGate(Signal... signals)
+    {
+        this(null, signals);
+    }
+
+    /**
+     * Creates a gate around the given condition.
+     *
+     * @param condition The condition, evaluated by {@link #test()}.
+     * @param signals The signals the condition reads.
+     */
+    public SignalGate(BooleanSupplier condition, Signal... signals)
+    {
+        this.condition = condition;
+        this.signals = signals;
+        this.seen = new int[signals.length];
+        reset();
+    }
+
+    /**
+     * Evaluates the wrapped condition if any of its inputs changed.
+     *
+     * @return The condition result, or false if it was skipped.
+     */
+    public boolean test()
+    {
+        if(!changed())
+        {
+            return false;
+        }
+        if(condition.getAsBoolean())
+        {
+            reset();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the guarded condition needs to be evaluated, recording the
+     * current signal versions as seen. A condition checked this way must call
+     * {@link #reset()} when it passes.
+     *
+     * @return true if an input changed or the wake up tick was reached.
+     */
+    public boolean changed()
+    {
+        boolean changed = Signals.tick() >= wakeTick;
+        for(int i = 0; i < signals.length; i++)
+        {
+            int version = Signals.version(signals[i]);
+            if(version != seen[i])
+            {
+                seen[i] = version;
+                changed = true;
+            }
+        }
+        if(changed)
+        {
+            wakeTick = Integer.MAX_VALUE;
+        }
+        return changed;
+    }
+
+    /**
+     * Requests an evaluation after the given number of ticks even if no input changed,
+     * used by conditions that retry an action or wait on a timeout.
+     *
+     * @param ticks The number of ticks from now.
+     */
+    public void wakeIn(int ticks)
+    {
+        wakeTick = Math.min(wakeTick, Signals.tick() + ticks);
+    }
+
+    /**
+     * Forgets the seen versions so the next check always evaluates.
+     */
+    public void reset()
+    {
+        for(int i = 0; i < seen.length; i++)
+        {
+            seen[i] = -1;
+        }
+        wakeTick = Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,53 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Signal;
+
+/**
+ * Version counters for each {@link Signal}, bumped whenever the input changes.
+ * Conditions remember the versions they last saw through a {@link SignalGate}
+ * and skip re-evaluation while none of their inputs have moved.
+ */
+public class Signals
+{
+    private static final int[] VERSIONS = new int[Signal.values().length];
+    private static int tick = 0;
+
+    /**
+     * Marks the given signal as changed.
+     *
+     * @param signal The signal.
+     */
+    public static void mark(Signal signal)
+    {
+        VERSIONS[signal.ordinal()]++;
+    }
+
+    /**
+     * Gets the current version of the given signal.
+     *
+     * @param signal The signal.
+     * @return The version, incremented on every change.
+     */
+    public static int version(Signal signal)
+    {
+        return VERSIONS[signal.ordinal()];
+    }
+
+    /**
+     * Advances the tick counter used for timed wake ups.
+     */
+    public static void onTick()
+    {
+        tick++;
+    }
+
+    /**
+     * Gets the number of ticks seen since the plugin started.
+     *
+     * @return The tick counter.
+     */
+    public static int tick()
+    {
+        return tick;
+    }
+}
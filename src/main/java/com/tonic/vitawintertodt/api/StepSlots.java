@@ -0,0 +1,82 @@
+package com.tonic.vitawintertodt.api;
+
+import java.util.Arrays;
+
+/**
+ * Preallocated primitive state for a single builder step, replacing string keyed
+ * handler context entries. Slots are declared while the handler is built and reset
+ * together when the step is entered or exited.
+ * <pre>
+ * StepSlots slots = new StepSlots();
+ * StepSlots.Int lastTick = slots.newInt();
+ * </pre>
+ */
+public class StepSlots
+{
+    private static final int UNSET = Integer.MIN_VALUE;
+
+    private int[] values = new int[0];
+
+    /**
+     * Declares a new int slot, initially unset.
+     *
+     * @return The slot.
+     */
+    public Int newInt()
+    {
+        values = Arrays.copyOf(values, values.length + 1);
+        values[values.length - 1] = UNSET;
+        return new Int(values.length - 1);
+    }
+
+    /**
+     * Resets every slot declared by this step to unset.
+     */
+    public void reset()
+    {
+        Arrays.fill(values, UNSET);
+    }
+
+    /**
+     * A single int slot.
+     */
+    public class Int
+    {
+        private final int index;
+
+        private Int(int index)
+        {
+            this.index = index;
+        }
+
+        /**
+         * Gets the slot value.
+         *
+         * @return The value, or Integer.MIN_VALUE if unset.
+         */
+        public int get()
+        {
+            return values[index];
+        }
+
+        /**
+         * Sets the slot value.
+         *
+         * @param value The value.
+         */
+        public void set(int value)
+        {
+            values[index] = value;
+        }
+
+        /**
+         * Checks whether the slot has been set since the last reset.
+         *
+         * @return true if set.
+         */
+        public boolean isSet()
+        {
+            return values[index] != UNSET;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.util.handler.StepHandler;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * A handler compiled by {@link StepTableBuilder} into flat arrays indexed by step. Each
+ * step is one of:
+ * <ul>
+ *     <li>an action, run once before moving on,</li>
+ *     <li>a condition, waited on until it holds,</li>
+ *     <li>a branch, which returns the index of the step to continue at,</li>
+ *     <li>a nested library StepHandler, stepped until it finishes.</li>
+ * </ul>
+ * An action, condition or nested handler that finishes ends the tick's dispatch. A
+ * branch continues at its target on the same tick, unless it jumps back to itself or
+ * an earlier step, which waits for the next tick so a retry loop cannot spin.
+ * <p>
+ * Resetting the table rewinds it, resets its nested handlers and clears the step
+ * state its steps registered, leaving it as it was when built without allocating.
+ */
+public class StepTable
+{
+    static final byte ACTION = 0;
+    static final byte CONDITION = 1;
+    static final byte BRANCH = 2;
+    static final byte NESTED = 3;
+
+    private final byte[] kinds;
+    private final Runnable[] actions;
+    private final BooleanSupplier[] conditions;
+    private final IntSupplier[] branches;
+    private final StepHandler[] nested;
+    private final Runnable[] resets;
+    private int index;
+
+    StepTable(byte[] kinds, Runnable[] actions, BooleanSupplier[] conditions, IntSupplier[] branches,
+              StepHandler[] nested, Runnable[] resets)
+    {
+        this.kinds = kinds;
+        this.actions = actions;
+        this.conditions = conditions;
+        this.branches = branches;
+        this.nested = nested;
+        this.resets = resets;
+    }
+
+    /**
+     * Dispatches the current step, following branches.
+     *
+     * @return true while the table has steps left to run.
+     */
+    public boolean step()
+    {
+        while(index < kinds.length)
+        {
+            int current = index;
+            switch(kinds[current])
+            {
+                case ACTION:
+                    actions[current].run();
+                    index = current + 1;
+                    return index < kinds.length;
+                case CONDITION:
+                    if(!conditions[current].getAsBoolean())
+                    {
+                        return true;
+                    }
+                    index = current + 1;
+                    return index < kinds.length;
+                case BRANCH:
+                    index = branches[current].getAsInt();
+                    if(index <= current)
+                    {
+                        return true;
+                    }
+                    break;
+                default:
+                    if(nested[current].step())
+                    {
+                        return true;
+                    }
+                    nested[current].reset();
+                    index = current + 1;
+                    return index < kinds.length;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rewinds the table to its first step and clears its step state.
+     */
+    public void reset()
+    {
+        index = 0;
+        for(StepHandler handler : nested)
+        {
+            if(handler != null)
+            {
+                handler.reset();
+            }
+        }
+        for(Runnable reset : resets)
+        {
+            reset.run();
+        }
+    }
+
+    /**
+     * Gets the number of steps.
+     *
+     * @return The step count.
+     */
+    public int size()
+    {
+        return kinds.length;
+    }
+
+    /**
+     * A named step that branches jump to. The label is resolved to its step index
+     * when the table is built, so a jump is a single int read.
+     */
+    public static class Label
+    {
+        private final String name;
+        private final StepTableBuilder<?> owner;
+        private int index = -1;
+
+        Label(String name, StepTableBuilder<?> owner)
+        {
+            this.name = name;
+            this.owner = owner;
+        }
+
+        /**
+         * Gets the index of the labelled step, for a branch to return.
+         *
+         * @return The step index.
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+
+        String getName()
+        {
+            return name;
+        }
+
+        StepTableBuilder<?> getOwner()
+        {
+            return owner;
+        }
+
+        boolean isPlaced()
+        {
+            return index >= 0;
+        }
+
+        void place(int index)
+        {
+            this.index = index;
+        }
+    }
+}
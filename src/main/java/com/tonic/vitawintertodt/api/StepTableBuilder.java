@@ -0,0 +1,190 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.util.handler.StepHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Builds a {@link StepTable}. Jump targets are {@link StepTable.Label}s declared up front
+ * and placed on the step they name, and {@link #build()} validates that every declared
+ * label was placed exactly once before resolving them to step indices.
+ *
+ * @param <T> The builder type, returned by every step method for chaining.
+ */
+public abstract class StepTableBuilder<T extends StepTableBuilder<T>>
+{
+    private final List<Byte> kinds = new ArrayList<>();
+    private final List<Object> bodies = new ArrayList<>();
+    private final List<StepTable.Label> labels = new ArrayList<>();
+    private final List<Runnable> resets = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private T self()
+    {
+        return (T) this;
+    }
+
+    /**
+     * Declares a label to place on a step and jump to.
+     *
+     * @param name The label name, used in validation errors.
+     * @return The label.
+     */
+    protected StepTable.Label label(String name)
+    {
+        StepTable.Label label = new StepTable.Label(name, this);
+        labels.add(label);
+        return label;
+    }
+
+    /**
+     * Adds an action that runs once.
+     *
+     * @param action The action.
+     * @return This builder.
+     */
+    public T add(Runnable action)
+    {
+        return step(StepTable.ACTION, action);
+    }
+
+    /**
+     * Adds a step that waits until its condition holds.
+     *
+     * @param condition The condition.
+     * @return This builder.
+     */
+    public T addDelayUntil(BooleanSupplier condition)
+    {
+        return step(StepTable.CONDITION, condition);
+    }
+
+    /**
+     * Adds a labelled step that waits until its condition holds.
+     *
+     * @param label The label of the step.
+     * @param condition The condition.
+     * @return This builder.
+     */
+    public T addDelayUntil(StepTable.Label label, BooleanSupplier condition)
+    {
+        place(label);
+        return addDelayUntil(condition);
+    }
+
+    /**
+     * Adds a labelled step that jumps to the step whose index it returns, taken from a
+     * label's {@link StepTable.Label#getIndex()}.
+     *
+     * @param label The label of the step.
+     * @param branch The branch.
+     * @return This builder.
+     */
+    public T branch(StepTable.Label label, IntSupplier branch)
+    {
+        place(label);
+        return step(StepTable.BRANCH, branch);
+    }
+
+    /**
+     * Places a label on the next step added, or on the end of the table if none follows.
+     *
+     * @param label The label.
+     * @return This builder.
+     */
+    public T mark(StepTable.Label label)
+    {
+        place(label);
+        return self();
+    }
+
+    /**
+     * Adds a library handler as a single step, run until it finishes.
+     *
+     * @param handler The handler.
+     * @return This builder.
+     */
+    public T nest(StepHandler handler)
+    {
+        return step(StepTable.NESTED, handler);
+    }
+
+    /**
+     * Registers step state to clear whenever the built table is reset.
+     *
+     * @param reset The reset.
+     * @return This builder.
+     */
+    public T onReset(Runnable reset)
+    {
+        resets.add(reset);
+        return self();
+    }
+
+    /**
+     * Validates the labels and compiles the steps into a table.
+     *
+     * @return The table.
+     * @throws IllegalStateException If a declared label was never placed.
+     */
+    public StepTable build()
+    {
+        for(StepTable.Label label : labels)
+        {
+            if(!label.isPlaced())
+            {
+                throw new IllegalStateException("Label never placed: " + label.getName());
+            }
+        }
+
+        int size = kinds.size();
+        byte[] table = new byte[size];
+        Runnable[] actions = new Runnable[size];
+        BooleanSupplier[] conditions = new BooleanSupplier[size];
+        IntSupplier[] branches = new IntSupplier[size];
+        StepHandler[] nested = new StepHandler[size];
+        for(int i = 0; i < size; i++)
+        {
+            table[i] = kinds.get(i);
+            Object body = bodies.get(i);
+            switch(table[i])
+            {
+                case StepTable.ACTION:
+                    actions[i] = (Runnable) body;
+                    break;
+                case StepTable.CONDITION:
+                    conditions[i] = (BooleanSupplier) body;
+                    break;
+                case StepTable.BRANCH:
+                    branches[i] = (IntSupplier) body;
+                    break;
+                default:
+                    nested[i] = (StepHandler) body;
+            }
+        }
+        return new StepTable(table, actions, conditions, branches, nested, resets.toArray(new Runnable[0]));
+    }
+
+    private void place(StepTable.Label label)
+    {
+        if(label.getOwner() != this)
+        {
+            throw new IllegalStateException("Label declared by another builder: " + label.getName());
+        }
+        if(label.isPlaced())
+        {
+            throw new IllegalStateException("Label placed twice: " + label.getName());
+        }
+        label.place(kinds.size());
+    }
+
+    private T step(byte kind, Object body)
+    {
+        kinds.add(kind);
+        bodies.add(body);
+        return self();
+    }
+}
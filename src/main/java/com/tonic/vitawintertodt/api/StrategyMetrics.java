@@ -0,0 +1,153 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Strategy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hourly rates of every {@link Strategy} objective, kept separately for each strategy
+ * that was played so the pipelines can be compared against any account goal. Every tick
+ * the session is active is credited to the strategy it plays, along with the points
+ * scored and experience gained on it.
+ * <p>
+ * Recording happens on the client thread and {@link #snapshot()} may be called from
+ * any thread.
+ */
+public class StrategyMetrics
+{
+    /**
+     * The number of game ticks in an hour.
+     */
+    public static final int TICKS_PER_HOUR = 6000;
+
+    private static final Strategy[] STRATEGIES = Strategy.values();
+    private static final long[] TICKS = new long[STRATEGIES.length];
+    private static final long[][] GAINED = new long[STRATEGIES.length][STRATEGIES.length];
+    private static final int[] EXPERIENCE = new int[STRATEGIES.length];
+    private static Strategy active = Strategy.POINTS;
+
+    static
+    {
+        clearExperience();
+    }
+
+    /**
+     * Credits one active tick to the given strategy along with the experience gained since the last tick.
+     *
+     * @param strategy The strategy being played.
+     * @param game The game to read experience from.
+     */
+    public static synchronized void onTick(Strategy strategy, WinterGame game)
+    {
+        active = strategy;
+        TICKS[strategy.ordinal()]++;
+        for(Strategy objective : STRATEGIES)
+        {
+            if(objective.getSkill() == null)
+            {
+                continue;
+            }
+            int experience = game.getExperience(objective.getSkill());
+            int previous = EXPERIENCE[objective.ordinal()];
+            if(previous >= 0 && experience > previous)
+            {
+                GAINED[strategy.ordinal()][objective.ordinal()] += experience - previous;
+            }
+            EXPERIENCE[objective.ordinal()] = experience;
+        }
+    }
+
+    /**
+     * Credits points scored to the strategy being played.
+     *
+     * @param points The points scored.
+     */
+    public static synchronized void addPoints(int points)
+    {
+        GAINED[active.ordinal()][Strategy.POINTS.ordinal()] += points;
+    }
+
+    /**
+     * Forgets the experience seen last, called when the session stops so time away
+     * from the game is not credited.
+     */
+    public static synchronized void pause()
+    {
+        clearExperience();
+    }
+
+    /**
+     * Clears every rate.
+     */
+    public static synchronized void reset()
+    {
+        for(int i = 0; i < STRATEGIES.length; i++)
+        {
+            TICKS[i] = 0;
+            for(int j = 0; j < STRATEGIES.length; j++)
+            {
+                GAINED[i][j] = 0;
+            }
+        }
+        clearExperience();
+    }
+
+    /**
+     * Takes a copy of every played strategy's rates.
+     *
+     * @return One row per strategy with at least one tick, in declaration order.
+     */
+    public static synchronized List<Row> snapshot()
+    {
+        List<Row> rows = new ArrayList<>();
+        for(Strategy strategy : STRATEGIES)
+        {
+            long ticks = TICKS[strategy.ordinal()];
+            if(ticks == 0)
+            {
+                continue;
+            }
+            long[] rates = new long[STRATEGIES.length];
+            for(Strategy objective : STRATEGIES)
+            {
+                rates[objective.ordinal()] = GAINED[strategy.ordinal()][objective.ordinal()] * TICKS_PER_HOUR / ticks;
+            }
+            rows.add(new Row(strategy, ticks, rates));
+        }
+        return rows;
+    }
+
+    private static void clearExperience()
+    {
+        for(int i = 0; i < EXPERIENCE.length; i++)
+        {
+            EXPERIENCE[i] = -1;
+        }
+    }
+
+    /**
+     * The rates of one strategy at the time of a snapshot.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Row
+    {
+        private final Strategy strategy;
+        private final long ticks;
+        private final long[] rates;
+
+        /**
+         * Gets the hourly rate of an objective while playing this row's strategy.
+         *
+         * @param objective The objective.
+         * @return The points or experience per hour.
+         */
+        public long getRate(Strategy objective)
+        {
+            return rates[objective.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Activity;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Supply;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.gameval.ItemID;
+
+/**
+ * Orders the supply visits of the preparation phase. Only the supplies actually
+ * missing are visited, in the order that reaches the brazier soonest from the player's
+ * tile, counting the walks between the objects, the ticks spent taking items and the
+ * potions still being mixed on arrival. Mixing starts once the last vial and herb are
+ * held and carries on while walking, so an order that gathers them early hides the
+ * mixing behind the remaining walks.
+ * <p>
+ * The order is planned again whenever the set of missing supplies changes, from the
+ * tile the player is on at that point.
+ */
+public class SupplyRoute
+{
+    /**
+     * Potions are made when fewer than this many are held.
+     */
+    public static final int MIN_POTIONS = 2;
+
+    /**
+     * The potions made each time.
+     */
+    public static final int POTIONS = 5;
+
+    private static final Supply[] SUPPLIES = Supply.values();
+    private static final int POTION_SUPPLIES = 1 << Supply.VIALS.ordinal() | 1 << Supply.HERBS.ordinal();
+
+    private final Position position;
+    private final int[] needed = new int[SUPPLIES.length];
+    private final WorldPoint[] tiles = new WorldPoint[SUPPLIES.length];
+    private final Supply[] order = new Supply[SUPPLIES.length];
+    private final Supply[] trial = new Supply[SUPPLIES.length];
+    private int planned = -1;
+    private int held = -1;
+    private int best;
+    private int mixTicks;
+
+    /**
+     * Creates a route for the given position.
+     *
+     * @param position The position whose brazier the route ends at.
+     */
+    public SupplyRoute(Position position)
+    {
+        this.position = position;
+    }
+
+    /**
+     * Gets the supply to collect next, planning the route again if the missing
+     * supplies changed since it was last planned.
+     *
+     * @param from The player's tile.
+     * @return The supply, or null if nothing is missing.
+     */
+    public Supply next(WorldPoint from)
+    {
+        int missing = missing();
+        if(missing == 0)
+        {
+            return null;
+        }
+        if(missing != planned)
+        {
+            plan(missing, from);
+            planned = missing;
+        }
+        return order[0];
+    }
+
+    /**
+     * Checks whether potions can be mixed, which waits until every vial and herb
+     * needed is held.
+     *
+     * @return true if a herb can be mixed.
+     */
+    public boolean canMix()
+    {
+        return (missing() & POTION_SUPPLIES) == 0
+                && ItemCounts.inventory(ItemID.WINT_HERB) > 0
+                && ItemCounts.inventory(ItemID.WINT_VIAL) > 0;
+    }
+
+    /**
+     * Forgets the planned order, called when the step is entered or exited.
+     */
+    public void reset()
+    {
+        planned = -1;
+        held = -1;
+    }
+
+    /**
+     * Counts the items still needed of each supply.
+     *
+     * @return The mask of supplies with items needed, by ordinal.
+     */
+    private int missing()
+    {
+        int potions = ItemCounts.inventory(WinterAPI.rejuvenationPotionIds);
+        if(held < 0)
+        {
+            held = potions;
+        }
+        boolean mixing = held < MIN_POTIONS;
+        int made = Math.max(0, potions - held);
+        needed[Supply.TINDERBOX.ordinal()] = ItemCounts.inventory(ItemID.TINDERBOX) == 0 ? 1 : 0;
+        needed[Supply.KNIFE.ordinal()] = ItemCounts.inventory(ItemID.KNIFE) == 0 ? 1 : 0;
+        needed[Supply.HAMMER.ordinal()] = ItemCounts.inventory(ItemID.HAMMER) == 0 ? 1 : 0;
+        needed[Supply.AXE.ordinal()] = WinterAPI.hasAxe() ? 0 : 1;
+        // Mixing turns a vial and a herb into a potion, so those made count towards both
+        needed[Supply.VIALS.ordinal()] = mixing
+                ? Math.max(0, POTIONS - made - ItemCounts.inventory(ItemID.WINT_VIAL)) : 0;
+        needed[Supply.HERBS.ordinal()] = mixing
+                ? Math.max(0, POTIONS - made - ItemCounts.inventory(ItemID.WINT_HERB)) : 0;
+
+        int mask = 0;
+        for(Supply supply : SUPPLIES)
+        {
+            if(needed[supply.ordinal()] > 0)
+            {
+                mask |= 1 << supply.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    private void plan(int missing, WorldPoint from)
+    {
+        for(Supply supply : SUPPLIES)
+        {
+            WorldPoint tile = supply == Supply.HERBS
+                    ? position.getHerbRoots()
+                    : SceneIndex.location(supply.getObjectId(), position);
+            tiles[supply.ordinal()] = tile == null ? position.getBrazier() : tile;
+        }
+        int mixes = Math.min(
+                ItemCounts.inventory(ItemID.WINT_VIAL) + needed[Supply.VIALS.ordinal()],
+                ItemCounts.inventory(ItemID.WINT_HERB) + needed[Supply.HERBS.ordinal()]
+        );
+        mixTicks = (int) Math.ceil(mixes * ActionTiming.getMeanCadence(Activity.MIX));
+        best = Integer.MAX_VALUE;
+        search(missing, 0, from, 0, (missing & POTION_SUPPLIES) == 0 ? 0 : -1);
+    }
+
+    /**
+     * Tries every order of the supplies left, keeping the one that arrives at the
+     * brazier with the potions mixed soonest.
+     *
+     * @param left The mask of supplies not yet visited.
+     * @param depth The number of supplies visited.
+     * @param at The tile of the last visit.
+     * @param ticks The ticks taken so far.
+     * @param mixFrom The tick mixing starts at, or -1 if it cannot start yet.
+     */
+    private void search(int left, int depth, WorldPoint at, int ticks, int mixFrom)
+    {
+        if(left == 0)
+        {
+            int total = ticks + WinterAPI.runTicks(at, position.getBrazier());
+            total = Math.max(total, mixFrom + mixTicks);
+            if(total < best)
+            {
+                best = total;
+                System.arraycopy(trial, 0, order, 0, depth);
+            }
+            return;
+        }
+        if(ticks >= best)
+        {
+            return;
+        }
+        for(Supply supply : SUPPLIES)
+        {
+            int bit = 1 << supply.ordinal();
+            if((left & bit) == 0)
+            {
+                continue;
+            }
+            WorldPoint tile = tiles[supply.ordinal()];
+            int done = ticks + WinterAPI.runTicks(at, tile) + needed[supply.ordinal()] * supply.getTicksPerItem();
+            int rest = left & ~bit;
+            trial[depth] = supply;
+            search(rest, depth + 1, tile, done, mixFrom < 0 && (rest & POTION_SUPPLIES) == 0 ? done : mixFrom);
+        }
+    }
+}
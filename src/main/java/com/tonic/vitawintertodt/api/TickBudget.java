@@ -0,0 +1,245 @@
+package com.tonic.vitawintertodt.api;
+
+/**
+ * Time budget of the work done on the client thread each game tick. The urgent work,
+ * the warmth check and the handler step, always runs first and in full. Work that can
+ * wait, such as saving statistics or rolling over the session journal, is queued with
+ * {@link #defer(Task)} and drained in order while the tick has budget left. The queue is
+ * a ring of arrays and each {@link Task} flags itself while queued, so deferring and
+ * draining neither box nor scan.
+ * <p>
+ * A task that has waited {@link #MAX_WAIT_TICKS} ticks runs even if the budget is spent,
+ * so a run of slow ticks cannot starve the queue. Ticks that exceed the budget are
+ * counted, along with the slowest tick seen.
+ * <p>
+ * Everything but the counters is used only on the client thread.
+ */
+public class TickBudget
+{
+    /**
+     * The time a tick may take on the client thread.
+     */
+    public static final long BUDGET_NANOS = 2_000_000;
+
+    /**
+     * The ticks a deferred task may wait before it runs regardless of the budget.
+     */
+    public static final int MAX_WAIT_TICKS = 50;
+
+    private static Task[] queue = new Task[16];
+    private static int[] queuedAt = new int[16];
+    private static int head;
+    private static int size;
+
+    private static long tickStart;
+    private static int clock;
+    private static volatile int backlog;
+    private static volatile int ticks;
+    private static volatile int overBudget;
+    private static volatile long slowest;
+
+    /**
+     * Starts timing a tick, called before any of its work.
+     */
+    public static void begin()
+    {
+        tickStart = System.nanoTime();
+    }
+
+    /**
+     * Queues work to run on a later tick with budget to spare. A task already in
+     * the queue is not queued again.
+     *
+     * @param task The work.
+     */
+    public static void defer(Task task)
+    {
+        if(task.queued)
+        {
+            return;
+        }
+        if(size == queue.length)
+        {
+            grow();
+        }
+        int tail = (head + size) & (queue.length - 1);
+        queue[tail] = task;
+        queuedAt[tail] = clock;
+        size++;
+        task.queued = true;
+        backlog = size;
+    }
+
+    /**
+     * Runs queued work while the tick has budget left, then accounts the tick.
+     * Called once the tick's urgent work is done.
+     */
+    public static void end()
+    {
+        while(size > 0
+                && (System.nanoTime() - tickStart < BUDGET_NANOS || clock - queuedAt[head] >= MAX_WAIT_TICKS))
+        {
+            poll().run();
+        }
+        backlog = size;
+
+        long elapsed = System.nanoTime() - tickStart;
+        clock++;
+        ticks++;
+        if(elapsed > BUDGET_NANOS)
+        {
+            overBudget++;
+        }
+        if(elapsed > slowest)
+        {
+            slowest = elapsed;
+        }
+    }
+
+    /**
+     * Takes a task off the queue without running it.
+     *
+     * @param task The work.
+     */
+    public static void drop(Task task)
+    {
+        if(!task.queued)
+        {
+            return;
+        }
+        int kept = 0;
+        for(int i = 0; i < size; i++)
+        {
+            int from = (head + i) & (queue.length - 1);
+            if(queue[from] == task)
+            {
+                continue;
+            }
+            int to = (head + kept) & (queue.length - 1);
+            queue[to] = queue[from];
+            queuedAt[to] = queuedAt[from];
+            kept++;
+        }
+        for(int i = kept; i < size; i++)
+        {
+            queue[(head + i) & (queue.length - 1)] = null;
+        }
+        size = kept;
+        task.queued = false;
+        backlog = size;
+    }
+
+    /**
+     * Runs every queued task immediately, called on the client thread when the plugin
+     * shuts down.
+     */
+    public static void flush()
+    {
+        while(size > 0)
+        {
+            poll().run();
+        }
+        backlog = 0;
+    }
+
+    /**
+     * Takes the oldest task off the queue, clearing its flag first so it can defer
+     * itself again while running.
+     */
+    private static Runnable poll()
+    {
+        Task task = queue[head];
+        queue[head] = null;
+        head = (head + 1) & (queue.length - 1);
+        size--;
+        task.queued = false;
+        return task.work;
+    }
+
+    /**
+     * Doubles the ring, unwrapping it so the oldest task is first.
+     */
+    private static void grow()
+    {
+        Task[] tasks = new Task[queue.length * 2];
+        int[] ticks = new int[queuedAt.length * 2];
+        for(int i = 0; i < size; i++)
+        {
+            int at = (head + i) & (queue.length - 1);
+            tasks[i] = queue[at];
+            ticks[i] = queuedAt[at];
+        }
+        queue = tasks;
+        queuedAt = ticks;
+        head = 0;
+    }
+
+    /**
+     * Gets the number of ticks accounted.
+     *
+     * @return The tick count.
+     */
+    public static int getTicks()
+    {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of ticks that took longer than {@link #BUDGET_NANOS}.
+     *
+     * @return The over budget tick count.
+     */
+    public static int getOverBudget()
+    {
+        return overBudget;
+    }
+
+    /**
+     * Gets the longest time a tick took.
+     *
+     * @return The duration in nanoseconds.
+     */
+    public static long getSlowest()
+    {
+        return slowest;
+    }
+
+    /**
+     * Gets the number of tasks waiting to run.
+     *
+     * @return The queue length.
+     */
+    public static int getBacklog()
+    {
+        return backlog;
+    }
+
+    /**
+     * Clears the counters.
+     */
+    public static void reset()
+    {
+        ticks = 0;
+        overBudget = 0;
+        slowest = 0;
+    }
+
+    /**
+     * Work to defer, queued at most once at a time.
+     */
+    public static class Task
+    {
+        private final Runnable work;
+        private boolean queued;
+
+        /**
+         * Creates a task.
+         *
+         * @param work The work to run.
+         */
+        public Task(Runnable work)
+        {
+            this.work = work;
+        }
+    }
+}
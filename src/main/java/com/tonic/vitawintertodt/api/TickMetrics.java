@@ -0,0 +1,185 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.State;
+import com.tonic.vitawintertodt.jfr.WinterFlight;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per state and per step tick latency histograms. The handlers name the step they are
+ * executing with {@link #enter(String)} and the session records how long each tick's
+ * step took against the state and the last entered step, so a step keeps being
+ * credited while it stays in a delay or hands over to library steps.
+ * <p>
+ * Recording happens on the client thread and {@link #snapshot()} may be called from
+ * any thread.
+ */
+public class TickMetrics
+{
+    /**
+     * The step name used for a state's totals.
+     */
+    public static final String ALL_STEPS = "*";
+
+    /**
+     * The step name used before a state's handler has entered a named step.
+     */
+    public static final String UNNAMED = "-";
+
+    private static final Map<State, Map<String, LatencyHistogram>> STEPS = new EnumMap<>(State.class);
+    private static final LatencyHistogram WARMTH = new LatencyHistogram();
+    private static String step = UNNAMED;
+
+    /**
+     * Marks the named step as the one currently executing.
+     *
+     * @param name The step name.
+     */
+    public static void enter(String name)
+    {
+        if(!name.equals(step))
+        {
+            step = name;
+            WinterFlight.step(name);
+        }
+    }
+
+    /**
+     * Gets the last entered step.
+     *
+     * @return The step name, or {@link #UNNAMED} if none has been entered since the last transition.
+     */
+    public static String getStep()
+    {
+        return step;
+    }
+
+    /**
+     * Clears the current step, called whenever the session changes state.
+     */
+    public static void transition()
+    {
+        if(!UNNAMED.equals(step))
+        {
+            step = UNNAMED;
+            WinterFlight.step(null);
+        }
+    }
+
+    /**
+     * Records the duration of one handler step.
+     *
+     * @param state The state whose handler was stepped.
+     * @param nanos The duration in nanoseconds.
+     */
+    public static synchronized void recordStep(State state, long nanos)
+    {
+        Map<String, LatencyHistogram> steps = STEPS.computeIfAbsent(state, s -> new LinkedHashMap<>());
+        histogram(steps, ALL_STEPS).record(nanos);
+        histogram(steps, step).record(nanos);
+    }
+
+    /**
+     * Records the duration of one warmth check.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public static synchronized void recordWarmth(long nanos)
+    {
+        WARMTH.record(nanos);
+    }
+
+    /**
+     * Clears every histogram.
+     */
+    public static synchronized void reset()
+    {
+        STEPS.clear();
+        WARMTH.reset();
+    }
+
+    /**
+     * Takes a consistent copy of every histogram's summary, warmth checks first and
+     * then each state's totals followed by its steps in the order they were first seen.
+     *
+     * @return The rows.
+     */
+    public static synchronized List<Row> snapshot()
+    {
+        List<Row> rows = new ArrayList<>();
+        rows.add(Row.of("WARMTH", "handleWarmth", WARMTH));
+        for(Map.Entry<State, Map<String, LatencyHistogram>> state : STEPS.entrySet())
+        {
+            for(Map.Entry<String, LatencyHistogram> step : state.getValue().entrySet())
+            {
+                rows.add(Row.of(state.getKey().name(), step.getKey(), step.getValue()));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Formats a snapshot as CSV, with latencies in nanoseconds.
+     *
+     * @param rows The snapshot rows.
+     * @return The CSV text including a header line.
+     */
+    public static String toCsv(List<Row> rows)
+    {
+        StringBuilder csv = new StringBuilder("state,step,ticks,p50_ns,p99_ns,max_ns\n");
+        for(Row row : rows)
+        {
+            csv.append(row.getState()).append(',')
+                    .append(row.getStep()).append(',')
+                    .append(row.getTicks()).append(',')
+                    .append(row.getP50()).append(',')
+                    .append(row.getP99()).append(',')
+                    .append(row.getMax()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> steps, String name)
+    {
+        LatencyHistogram histogram = steps.get(name);
+        if(histogram == null)
+        {
+            histogram = new LatencyHistogram();
+            steps.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * The summary of one histogram at the time of a snapshot.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Row
+    {
+        private final String state;
+        private final String step;
+        private final long ticks;
+        private final long p50;
+        private final long p99;
+        private final long max;
+
+        private static Row of(String state, String step, LatencyHistogram histogram)
+        {
+            return new Row(
+                    state,
+                    step,
+                    histogram.getCount(),
+                    histogram.getPercentile(50),
+                    histogram.getPercentile(99),
+                    histogram.getMax()
+            );
+        }
+    }
+}
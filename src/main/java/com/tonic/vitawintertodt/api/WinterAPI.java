@@ -1,20 +1,9 @@
 package com.tonic.vitawintertodt.api;
 
-import com.tonic.Static;
-import com.tonic.api.game.SkillAPI;
-import com.tonic.api.game.VarAPI;
-import com.tonic.api.widgets.BankAPI;
-import com.tonic.api.widgets.InventoryAPI;
-import com.tonic.api.widgets.WidgetAPI;
-import com.tonic.data.wrappers.ItemEx;
-import com.tonic.util.ClickManagerUtil;
+import com.tonic.vitawintertodt.data.Strategy;
 import net.runelite.api.Skill;
 import net.runelite.api.coords.WorldPoint;
-import net.runelite.api.gameval.InterfaceID;
 import net.runelite.api.gameval.ItemID;
-import net.runelite.api.gameval.VarbitID;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * A collection of util methods and one-off constants for
@@ -24,18 +13,29 @@ public class WinterAPI
 {
     public static final WorldPoint BANK = new WorldPoint(1640, 3944, 0);
     public static final WorldPoint WAITING_AREA = new WorldPoint(1631, 3981, 0);
-    public  static final Map<Integer,Integer> AXES = new HashMap<>() {{
-        put(ItemID.BRONZE_AXE, 1);
-        put(ItemID.IRON_AXE, 1);
-        put(ItemID.STEEL_AXE, 6);
-        put(ItemID.BLACK_AXE, 11);
-        put(ItemID.MITHRIL_AXE, 21);
-        put(ItemID.ADAMANT_AXE, 31);
-        put(ItemID.RUNE_AXE, 41);
-        put(ItemID.DRAGON_AXE, 61);
-        put(ItemID.INFERNAL_AXE, 61);
-        put(ItemID.CRYSTAL_AXE, 71);
-    }};
+
+    /**
+     * Axe item ids, sorted from best to worst. {@link #AXE_LEVELS} holds the
+     * woodcutting level each one requires at the same index.
+     */
+    public static final int[] AXES = {
+            ItemID.CRYSTAL_AXE,
+            ItemID.INFERNAL_AXE,
+            ItemID.DRAGON_AXE,
+            ItemID.RUNE_AXE,
+            ItemID.ADAMANT_AXE,
+            ItemID.MITHRIL_AXE,
+            ItemID.BLACK_AXE,
+            ItemID.STEEL_AXE,
+            ItemID.IRON_AXE,
+            ItemID.BRONZE_AXE
+    };
+    public static final int[] AXE_LEVELS = {71, 61, 61, 41, 31, 21, 11, 6, 1, 1};
+
+    /**
+     * The tiles the player covers per tick while running.
+     */
+    public static final int RUN_SPEED = 2;
 
     public static int[] rejuvenationPotionIds = {
             ItemID.WINT_POTION1,
@@ -44,6 +44,67 @@ public class WinterAPI
             ItemID.WINT_POTION4
     };
 
+    private static WinterGame game = new LiveGame();
+    private static volatile Strategy strategy = Strategy.POINTS;
+
+    /**
+     * Gets the game the handlers read from and act on.
+     *
+     * @return The game, the live client unless replaced.
+     */
+    public static WinterGame getGame()
+    {
+        return game;
+    }
+
+    /**
+     * Replaces the game the handlers read from and act on.
+     *
+     * @param game The game.
+     */
+    public static void setGame(WinterGame game)
+    {
+        WinterAPI.game = game;
+    }
+
+    /**
+     * Gets the strategy the next gameplay handler is built for.
+     *
+     * @return The selected strategy.
+     */
+    public static Strategy getStrategy()
+    {
+        return strategy;
+    }
+
+    /**
+     * Selects the strategy to play, taking effect from the next round.
+     *
+     * @param strategy The strategy.
+     */
+    public static void setStrategy(Strategy strategy)
+    {
+        WinterAPI.strategy = strategy;
+    }
+
+    /**
+     * Estimates how long running between two tiles takes, from the walking distance
+     * when {@code to} is a waypoint of {@link PathCache}.
+     *
+     * @param from The start tile.
+     * @param to The destination tile.
+     * @return The ticks spent running.
+     */
+    public static int runTicks(WorldPoint from, WorldPoint to)
+    {
+        int steps = PathCache.distance(from, to);
+        if(steps < 0)
+        {
+            steps = from.distanceTo(to);
+        }
+        return (steps + RUN_SPEED - 1) / RUN_SPEED;
+    }
+
     /**
      * Gets the current warmth level of the player in Wintertodt.
      *
@@ -51,19 +112,7 @@ public class WinterAPI
      */
     public static int getWarmth()
     {
-        try
-        {
-            String text = WidgetAPI.getText(InterfaceID.WintStatus.WARMTH_TITLE);
-            if (text == null || text.isBlank())
-            {
-                return Integer.MAX_VALUE;
-            }
-            return Integer.parseInt(text.replaceAll("\\D+", ""));
-        }
-        catch (Exception e)
-        {
-            return Integer.MAX_VALUE;
-        }
+        return WinterStatus.getWarmth();
     }
 
     /**
@@ -73,24 +122,26 @@ public class WinterAPI
      */
     public static int getTimer()
     {
-        return VarAPI.getVar(VarbitID.WINT_TRANSMIT_RESPAWNDELAY);
+        return WinterStatus.getRespawnDelay();
     }
 
     /**
-     * Handles the player's warmth by consuming a Rejuvenation potion if the warmth is below 65.
+     * Handles the player's warmth by consuming a Rejuvenation potion if the warmth is below 65,
+     * or earlier when the {@link Planner} found drinking now cheaper than interrupting a later action.
      *
-     * @return true if a potion was consumed, false otherwise.
+     * @return true if a drink was sent, false if none was needed or the one still in
+     * flight made it a duplicate.
      */
     public static boolean handleWarmth()
     {
-        if(getWarmth() < 65)
+        if(ItemCounts.inventory(rejuvenationPotionIds) > 0 && Planner.shouldDrink(getWarmth()))
         {
-            ItemEx pot = InventoryAPI.getItem("Rejuvenation");
-            if(pot != null)
+            for(int id : rejuvenationPotionIds)
             {
-                ClickManagerUtil.queueClickBox(pot);
-                pot.interact(2);
-                return true;
+                if(ItemCounts.inventory(id) > 0)
+                {
+                    return game.interactItem(id, 2);
+                }
             }
         }
         return false;
@@ -102,23 +153,22 @@ public class WinterAPI
      * @return The item ID of the best axe the player can use, or -1 if no suitable axe is found.
      */
     public static int decideBestAxe() {
-        return Static.invoke(() -> {
-            int bestAxe = -1;
-            int bestAxeLevel = 0;
-            int woodcuttingLevel = SkillAPI.getLevel(Skill.WOODCUTTING);
-
-            for (Map.Entry<Integer, Integer> entry : AXES.entrySet()) {
-                int axeId = entry.getKey();
-                int requiredLevel = entry.getValue();
-                if (woodcuttingLevel >= requiredLevel && BankAPI.contains(axeId)) {
-                    if (requiredLevel > bestAxeLevel) {
-                        bestAxe = axeId;
-                        bestAxeLevel = requiredLevel;
-                    }
-                }
+        int woodcuttingLevel = game.getLevel(Skill.WOODCUTTING);
+        for (int i = 0; i < AXES.length; i++) {
+            if (woodcuttingLevel >= AXE_LEVELS[i] && ItemCounts.bank(AXES[i]) > 0) {
+                return AXES[i];
             }
+        }
+        return -1;
+    }
 
-            return bestAxe;
-        });
+    /**
+     * Checks whether the player is carrying or wielding any axe.
+     *
+     * @return true if an axe is in the inventory or worn, false otherwise.
+     */
+    public static boolean hasAxe()
+    {
+        return ItemCounts.inventory(AXES) > 0 || ItemCounts.worn(AXES) > 0;
     }
 }
@@ -0,0 +1,108 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.vitawintertodt.data.Position;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * The game reads and actions the Wintertodt handlers perform that are not served
+ * by the event fed caches ({@link SceneIndex}, {@link ItemCounts}, {@link WinterStatus}).
+ * The live client implementation is {@link LiveGame}; offline drivers such as the
+ * simulator install their own through {@link WinterAPI#setGame(WinterGame)}.
+ */
+public interface WinterGame
+{
+    /**
+     * Gets the current game tick.
+     *
+     * @return The tick count.
+     */
+    int getTickCount();
+
+    /**
+     * Gets the experience in a skill.
+     *
+     * @param skill The skill.
+     * @return The experience.
+     */
+    int getExperience(Skill skill);
+
+    /**
+     * Gets the real level of a skill.
+     *
+     * @param skill The skill.
+     * @return The level.
+     */
+    int getLevel(Skill skill);
+
+    /**
+     * Gets the local player's tile.
+     *
+     * @return The tile.
+     */
+    WorldPoint getPlayerLocation();
+
+    /**
+     * Checks whether the local player is idle.
+     *
+     * @return true if not animating or moving.
+     */
+    boolean isIdle();
+
+    /**
+     * Checks whether the local player is moving.
+     *
+     * @return true if moving.
+     */
+    boolean isMoving();
+
+    /**
+     * Clicks to walk towards a tile.
+     *
+     * @param destination The tile.
+     */
+    void walkTo(WorldPoint destination);
+
+    /**
+     * Interacts with the indexed object nearest to a position.
+     *
+     * @param objectId The object id.
+     * @param position The position.
+     * @param action The action name.
+     */
+    void interactObject(int objectId, Position position, String action);
+
+    /**
+     * Interacts with the indexed object nearest to a position.
+     *
+     * @param objectId The object id.
+     * @param position The position.
+     * @param action The action index.
+     */
+    void interactObject(int objectId, Position position, int action);
+
+    /**
+     * Interacts with an inventory item.
+     *
+     * @param itemId The item id.
+     * @param action The action index.
+     * @return false if the interaction was not sent, such as when the item is not held
+     * or {@link ActionGovernor} dropped it as a duplicate.
+     */
+    boolean interactItem(int itemId, int action);
+
+    /**
+     * Uses one inventory item on another.
+     *
+     * @param itemId The item to use.
+     * @param targetId The item to use it on.
+     */
+    void useItemOn(int itemId, int targetId);
+
+    /**
+     * Gets a random number, so offline drivers can make runs reproducible.
+     *
+     * @return A value in [0, 1).
+     */
+    double random();
+}
@@ -0,0 +1,250 @@
+package com.tonic.vitawintertodt.api;
+
+import com.tonic.api.game.VarAPI;
+import com.tonic.api.widgets.WidgetAPI;
+import com.tonic.vitawintertodt.data.Signal;
+import net.runelite.api.gameval.InterfaceID;
+import net.runelite.api.gameval.VarbitID;
+
+import java.util.Arrays;
+
+/**
+ * Cached Wintertodt status values. The respawn delay is taken from varbit change
+ * events and the warmth and boss energy widgets are only reparsed when their text
+ * changes, so reading any of these is a plain field access.
+ */
+public class WinterStatus
+{
+    /**
+     * The status values that can be listened to.
+     */
+    public enum Field
+    {
+        WARMTH,
+        RESPAWN_DELAY,
+        ENERGY
+    }
+
+    /**
+     * Listener notified whenever a status value changes.
+     */
+    public interface Listener
+    {
+        /**
+         * Called when a status value changes.
+         *
+         * @param field The value that changed.
+         * @param previous The previous value.
+         * @param current The new value.
+         */
+        void onChange(Field field, int previous, int current);
+    }
+
+    private static final Listener[] NO_LISTENERS = new Listener[0];
+
+    private static int warmth = Integer.MAX_VALUE;
+    private static int respawnDelay = 0;
+    private static int energy = -1;
+    private static String warmthText;
+    private static String energyText;
+    private static Listener[] listeners = NO_LISTENERS;
+
+    /**
+     * Gets the current warmth level of the player.
+     *
+     * @return The warmth level, or Integer.MAX_VALUE if it cannot be determined.
+     */
+    public static int getWarmth()
+    {
+        return warmth;
+    }
+
+    /**
+     * Gets the respawn timer for Wintertodt.
+     *
+     * @return The respawn timer in ticks.
+     */
+    public static int getRespawnDelay()
+    {
+        return respawnDelay;
+    }
+
+    /**
+     * Gets the remaining energy of the Wintertodt.
+     *
+     * @return The energy percentage, or -1 if it cannot be determined.
+     */
+    public static int getEnergy()
+    {
+        return energy;
+    }
+
+    /**
+     * Registers a listener for status changes.
+     *
+     * @param listener The listener.
+     */
+    public static synchronized void addListener(Listener listener)
+    {
+        Listener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener The listener.
+     */
+    public static synchronized void removeListener(Listener listener)
+    {
+        for(int i = 0; i < listeners.length; i++)
+        {
+            if(listeners[i] == listener)
+            {
+                Listener[] updated = new Listener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, updated.length - i);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies a varbit change.
+     *
+     * @param varbitId The changed varbit.
+     * @param value The new value.
+     */
+    public static void onVarbitChanged(int varbitId, int value)
+    {
+        if(varbitId == VarbitID.WINT_TRANSMIT_RESPAWNDELAY)
+        {
+            setRespawnDelay(value);
+        }
+    }
+
+    /**
+     * Reparses the warmth and energy widgets if their text has changed since the last call.
+     * Must be called on the client thread.
+     */
+    public static void refreshWidgets()
+    {
+        onWidgetText(
+                WidgetAPI.getText(InterfaceID.WintStatus.WARMTH_TITLE),
+                WidgetAPI.getText(InterfaceID.WintStatus.ENERGY_TITLE)
+        );
+    }
+
+    /**
+     * Applies the current warmth and energy widget text, reparsing only what changed.
+     *
+     * @param warmthWidget The warmth widget text, or null if not shown.
+     * @param energyWidget The energy widget text, or null if not shown.
+     */
+    public static void onWidgetText(String warmthWidget, String energyWidget)
+    {
+        if(!equals(warmthWidget, warmthText))
+        {
+            warmthText = warmthWidget;
+            setWarmth(parseDigits(warmthWidget, Integer.MAX_VALUE));
+        }
+
+        if(!equals(energyWidget, energyText))
+        {
+            energyText = energyWidget;
+            setEnergy(parseDigits(energyWidget, -1));
+        }
+    }
+
+    /**
+     * Reads every value directly from the client, used when the plugin starts.
+     * Must be called on the client thread.
+     */
+    public static void rebuild()
+    {
+        setRespawnDelay(VarAPI.getVar(VarbitID.WINT_TRANSMIT_RESPAWNDELAY));
+        warmthText = null;
+        energyText = null;
+        refreshWidgets();
+    }
+
+    /**
+     * Resets every value to unknown.
+     */
+    public static void clear()
+    {
+        warmth = Integer.MAX_VALUE;
+        respawnDelay = 0;
+        energy = -1;
+        warmthText = null;
+        energyText = null;
+    }
+
+    static void setWarmth(int value)
+    {
+        int previous = warmth;
+        warmth = value;
+        notify(Field.WARMTH, previous, value);
+    }
+
+    static void setRespawnDelay(int value)
+    {
+        int previous = respawnDelay;
+        respawnDelay = value;
+        notify(Field.RESPAWN_DELAY, previous, value);
+    }
+
+    static void setEnergy(int value)
+    {
+        int previous = energy;
+        energy = value;
+        notify(Field.ENERGY, previous, value);
+    }
+
+    private static void notify(Field field, int previous, int current)
+    {
+        if(previous == current)
+        {
+            return;
+        }
+        Signals.mark(Signal.STATUS);
+        for(Listener listener : listeners)
+        {
+            listener.onChange(field, previous, current);
+        }
+    }
+
+    /**
+     * Parses the digits of the given text as one number, ignoring every other character.
+     *
+     * @param text The text.
+     * @param fallback The value to return if the text has no digits.
+     * @return The parsed number, or the fallback.
+     */
+    static int parseDigits(String text, int fallback)
+    {
+        if(text == null)
+        {
+            return fallback;
+        }
+        int value = 0;
+        boolean found = false;
+        for(int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if(c >= '0' && c <= '9')
+            {
+                value = value * 10 + (c - '0');
+                found = true;
+            }
+        }
+        return found ? value : fallback;
+    }
+
+    private static boolean equals(String a, String b)
+    {
+        return a == b || (a != null && a.equals(b));
+    }
+}
@@ -1,36 +1,36 @@
 package com.tonic.vitawintertodt.api;
 
-import com.tonic.api.entities.PlayerAPI;
-import com.tonic.api.entities.TileObjectAPI;
-import com.tonic.api.game.MovementAPI;
-import com.tonic.api.game.SkillAPI;
 import com.tonic.api.handlers.BankBuilder;
 import com.tonic.api.widgets.BankAPI;
-import com.tonic.api.widgets.InventoryAPI;
-import com.tonic.data.LayoutView;
-import com.tonic.data.wrappers.ItemEx;
-import com.tonic.data.wrappers.PlayerEx;
-import com.tonic.data.wrappers.TileObjectEx;
-import com.tonic.services.GameManager;
-import com.tonic.util.ClickManagerUtil;
 import com.tonic.util.handler.AbstractHandlerBuilder;
 import com.tonic.util.handler.StepHandler;
+import com.tonic.vitawintertodt.data.Activity;
 import com.tonic.vitawintertodt.data.BrazierState;
 import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Signal;
+import com.tonic.vitawintertodt.data.Strategy;
+import com.tonic.vitawintertodt.data.Supply;
 import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.gameval.ItemID;
 import net.runelite.api.gameval.ObjectID;
 
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
 /**
  * WinterTodtBuilder class.
  */
-public class WinterTodtBuilder extends AbstractHandlerBuilder<WinterTodtBuilder>
+public class WinterTodtBuilder extends StepTableBuilder<WinterTodtBuilder>
 {
+    private static final int ROOT_POINTS = 10;
+    private static final int KINDLING_POINTS = 25;
+
     /**
      * Generates the starting handler for Wintertodt.
-     * @return The starting StepHandler.
+     * @return The starting handler.
      */
-    public static StepHandler generateStart()
+    public static StepTable generateStart()
     {
         return new WinterTodtBuilder()
                 .bank()
@@ -42,188 +42,404 @@ public class WinterTodtBuilder extends AbstractHandlerBuilder<WinterTodtBuilder>
     /**
      * Generates the setup handler for Wintertodt.
      * @param position The position to use.
-     * @return The setup StepHandler.
+     * @return The setup handler.
      */
-    public static StepHandler generateSetup(Position position)
+    public static StepTable generateSetup(Position position)
     {
         return new WinterTodtBuilder()
                 .waitForReset()
                 .prep(position)
                 .walkToBrazier(position)
-                .waitForGame()
+                .waitForGame(position)
                 .build();
     }
 
     /**
-     * Generates the gameplay handler for Wintertodt.
+     * Generates the gameplay handler for Wintertodt, fletching every root for points.
      * @param position The position to use.
-     * @return The gameplay StepHandler.
+     * @return The gameplay handler.
      */
-    public static StepHandler generateGameplay(Position position)
+    public static StepTable generateGameplay(Position position)
     {
-        return new WinterTodtBuilder()
+        WinterTodtBuilder builder = new WinterTodtBuilder();
+        StepTable.Label convert = builder.label("convert");
+        return builder
+                .resume(convert)
+                .walkToTree(position)
+                .chopTree(position, Strategy.POINTS)
+                .mark(convert)
+                .fletch(position, true)
+                .offerWood(position)
+                .build();
+    }
+
+    /**
+     * Generates the gameplay handler for Wintertodt, feeding raw roots for firemaking xp.
+     * @param position The position to use.
+     * @return The gameplay handler.
+     */
+    public static StepTable generateFiremaking(Position position)
+    {
+        WinterTodtBuilder builder = new WinterTodtBuilder();
+        StepTable.Label convert = builder.label("convert");
+        return builder
+                .resume(convert)
                 .walkToTree(position)
-                .chopTree()
-                .fletch(position)
-                .offerWood()
+                .chopTree(position, Strategy.FIREMAKING)
+                .mark(convert)
+                .walkToBrazier(position)
+                .offerWood(position)
                 .build();
     }
 
+    /**
+     * Generates the gameplay handler for Wintertodt, fletching at the tree for fletching xp.
+     * @param position The position to use.
+     * @return The gameplay handler.
+     */
+    public static StepTable generateFletching(Position position)
+    {
+        WinterTodtBuilder builder = new WinterTodtBuilder();
+        StepTable.Label convert = builder.label("convert");
+        return builder
+                .resume(convert)
+                .walkToTree(position)
+                .chopTree(position, Strategy.FLETCHING)
+                .mark(convert)
+                .fletch(position, false)
+                .walkToBrazier(position)
+                .offerWood(position)
+                .build();
+    }
+
+    /**
+     * Skips to converting the fuel already held when there is no chopping to do first,
+     * as when the loop starts over at another brazier partway through a cycle: kindling
+     * is held, or the inventory has no room for another root.
+     * @param convert The label of the first step after chopping.
+     * @return This builder.
+     */
+    private WinterTodtBuilder resume(StepTable.Label convert)
+    {
+        StepTable.Label resume = label("resume");
+        branch(resume, () -> {
+            boolean convertFirst = ItemCounts.inventory(ItemID.WINT_BRUMA_KINDLING) > 0
+                    || (ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT) > 0 && ItemCounts.freeSlots() == 0);
+            return convertFirst ? convert.getIndex() : resume.getIndex() + 1;
+        });
+        return this;
+    }
+
     private WinterTodtBuilder walkToBrazier(Position position)
     {
-        walkTo(position.getBrazier());
+        walk("walkToBrazier", position.getBrazier());
         return this;
     }
 
     private WinterTodtBuilder walkToTree(Position position)
     {
-        walkTo(position.getTree());
+        walk("walkToTree", position.getTree());
+        return this;
+    }
+
+    /**
+     * Walks to a tile inside the arena through {@link WinterGame}, unlike the global
+     * walker which is kept for trips through the doors.
+     * @param name The step name reported to {@link TickMetrics}.
+     * @param destination The destination tile.
+     * @return This builder.
+     */
+    private WinterTodtBuilder walk(String name, WorldPoint destination)
+    {
+        return walk(name, destination, false);
+    }
+
+    /**
+     * Walks to a waypoint along its {@link PathCache} path while it can be reached
+     * inside the scene, leaving any trip through the doors to the global walker.
+     * @param name The step name reported to {@link TickMetrics}.
+     * @param destination The waypoint.
+     * @return This builder.
+     */
+    private WinterTodtBuilder travel(String name, WorldPoint destination)
+    {
+        walk(name, destination, true);
+        nest(LibrarySteps.trip(destination));
         return this;
     }
 
+    /**
+     * Walks to a tile through {@link WinterGame}, clicking along its cached path.
+     * @param name The step name reported to {@link TickMetrics}.
+     * @param destination The destination tile.
+     * @param inSceneOnly Whether to finish as soon as the destination cannot be reached
+     *                    inside the scene, rather than clicking it regardless.
+     * @return This builder.
+     */
+    private WinterTodtBuilder walk(String name, WorldPoint destination, boolean inSceneOnly)
+    {
+        SignalGate gate = gate(Signal.PLAYER);
+        addDelayUntil(named(name, () -> {
+            if(!gate.changed())
+                return false;
+            WorldPoint location = game().getPlayerLocation();
+            if(location.distanceTo(destination) <= 1 || (inSceneOnly && !PathCache.reachable(location, destination)))
+            {
+                gate.reset();
+                return true;
+            }
+            if(!game().isMoving())
+                walkToward(destination);
+            gate.wakeIn(2);
+            return false;
+        }));
+        return this;
+    }
+
+    /**
+     * Clicks the next tile on the cached path to a destination.
+     * @param destination The destination tile.
+     */
+    private static void walkToward(WorldPoint destination)
+    {
+        game().walkTo(PathCache.next(game().getPlayerLocation(), destination));
+    }
+
     private WinterTodtBuilder walkWaitingArea()
     {
-        walkTo(WinterAPI.WAITING_AREA);
+        travel("walkWaitingArea", WinterAPI.WAITING_AREA);
         return this;
     }
 
     private WinterTodtBuilder waitForReset()
     {
-        addDelayUntil(() -> WinterAPI.getTimer() > 0);
+        SignalGate reset = gate(() -> WinterAPI.getTimer() > 0, Signal.STATUS);
+        addDelayUntil(named("waitForReset", reset::test));
         return this;
     }
 
-    private WinterTodtBuilder waitForGame()
+    private WinterTodtBuilder waitForGame(Position position)
     {
-        add(context -> {
-            context.put("fmxp", SkillAPI.getExperience(Skill.FIREMAKING));
+        StepSlots slots = slots();
+        StepSlots.Int fmxp = slots.newInt();
+        add(() -> {
+            TickMetrics.enter("waitForGame");
+            slots.reset();
+            fmxp.set(game().getExperience(Skill.FIREMAKING));
         });
-        addDelayUntil(() -> WinterAPI.getTimer() == 0);
-        addDelayUntil(context -> {
-            BrazierState brazier = BrazierState.getState();
-            if(brazier == BrazierState.LIT)
-            {
-                context.remove("fmxp");
-                return true;
-            }
-            int oldFmxp = context.get("fmxp");
-            int newFmxp = SkillAPI.getExperience(Skill.FIREMAKING);
-            if(newFmxp > oldFmxp)
+        SignalGate start = gate(() -> WinterAPI.getTimer() == 0, Signal.STATUS);
+        addDelayUntil(start::test);
+        SignalGate gate = gate(Signal.SCENE, Signal.XP, Signal.PLAYER);
+        addDelayUntil(() -> {
+            if(!gate.changed())
+                return false;
+            BrazierState brazier = BrazierState.getState(position);
+            if(brazier == BrazierState.LIT || game().getExperience(Skill.FIREMAKING) > fmxp.get())
             {
-                context.remove("fmxp");
+                slots.reset();
+                gate.reset();
                 return true;
             }
-            brazier.interact();
+            brazier.interact(position);
+            gate.wakeIn(1);
             return false;
         });
         return this;
     }
 
-    private WinterTodtBuilder offerWood()
+    private WinterTodtBuilder offerWood(Position position)
     {
-        addDelayUntil(context -> {
-            if(!InventoryAPI.containsAny(ItemID.WINT_BRUMA_KINDLING, ItemID.WINT_BRUMA_ROOT))
+        StepSlots slots = slots();
+        StepSlots.Int fmxp = slots.newInt();
+        StepSlots.Int roots = slots.newInt();
+        StepSlots.Int kindling = slots.newInt();
+        RetryTimer feeding = timer(Activity.FEED);
+        SignalGate gate = gate(Signal.INVENTORY, Signal.SCENE, Signal.XP, Signal.PLAYER, Signal.HIT);
+        addDelayUntil(named("offerWood", () -> {
+            if(!gate.changed())
+                return false;
+
+            if(ItemCounts.inventory(ItemID.WINT_BRUMA_KINDLING) == 0 && ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT) == 0)
             {
-                context.remove("last_tick");
-                context.remove("fmxp");
+                slots.reset();
+                feeding.reset();
+                gate.reset();
                 return true;
             }
 
-            if(context.get("fmxp") == null)
+            if(!fmxp.isSet())
             {
-                context.put("last_tick", GameManager.getTickCount());
-                context.put("fmxp", SkillAPI.getExperience(Skill.FIREMAKING));
+                fmxp.set(game().getExperience(Skill.FIREMAKING));
+                roots.set(ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT));
+                kindling.set(ItemCounts.inventory(ItemID.WINT_BRUMA_KINDLING));
             }
 
-            BrazierState state = BrazierState.getState();
+            int tick = game().getTickCount();
+            BrazierState state = BrazierState.getState(position);
             switch(state)
             {
                 case LIT:
-                    int lastFmxp = context.get("fmxp");
-                    int currentFmxp = SkillAPI.getExperience(Skill.FIREMAKING);
-                    if(currentFmxp > lastFmxp)
+                    int currentFmxp = game().getExperience(Skill.FIREMAKING);
+                    if(currentFmxp > fmxp.get())
                     {
-                        context.put("last_tick", GameManager.getTickCount());
-                        context.put("fmxp", currentFmxp);
-                        break;
+                        fmxp.set(currentFmxp);
+                        feeding.progressed(tick);
+                        scoreFed(roots, kindling);
                     }
 
-                    if(GameManager.getTickCount() - (int) context.get("last_tick") < 4)
+                    int remaining = feeding.remaining(tick);
+                    if(remaining > 0)
                     {
+                        gate.wakeIn(remaining);
                         break;
                     }
 
-                    context.put("last_tick", GameManager.getTickCount());
-                    context.put("fmxp", currentFmxp);
-                    state.interact();
+                    state.interact(position);
+                    feeding.issued(tick);
+                    gate.wakeIn(feeding.remaining(tick));
                     break;
                 case UNLIT:
                 case DESTROYED:
-                    state.interact();
+                    feeding.reset();
+                    state.interact(position);
+                    gate.wakeIn(1);
                     break;
             }
             return false;
-        });
+        }));
         return this;
     }
 
-    private WinterTodtBuilder chopTree()
+    /**
+     * Scores the bruma fed since the last call, crediting the points to {@link StrategyMetrics}
+     * and {@link PositionStats}.
+     * @param roots The slot holding the roots held at the last call.
+     * @param kindling The slot holding the kindling held at the last call.
+     */
+    private static void scoreFed(StepSlots.Int roots, StepSlots.Int kindling)
     {
-        addDelayUntil(() -> {
-            if(InventoryAPI.count(ItemID.WINT_BRUMA_ROOT) >= 10)
+        int heldRoots = ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT);
+        int heldKindling = ItemCounts.inventory(ItemID.WINT_BRUMA_KINDLING);
+        int points = Math.max(0, roots.get() - heldRoots) * ROOT_POINTS
+                + Math.max(0, kindling.get() - heldKindling) * KINDLING_POINTS;
+        if(points > 0)
+        {
+            StrategyMetrics.addPoints(points);
+            PositionStats.addPoints(points);
+        }
+        roots.set(heldRoots);
+        kindling.set(heldKindling);
+    }
+
+    private WinterTodtBuilder chopTree(Position position, Strategy strategy)
+    {
+        StepSlots slots = slots();
+        StepSlots.Int roots = slots.newInt();
+        StepSlots.Int lastRoot = slots.newInt();
+        RetryTimer chopping = timer(Activity.CHOP);
+        SignalGate gate = gate(Signal.INVENTORY, Signal.PLAYER, Signal.SCENE, Signal.HIT);
+        addDelayUntil(named("chopTree", () -> {
+            if(!gate.changed())
+                return false;
+
+            int held = ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT);
+            int target = strategy == Strategy.POINTS ? Planner.getChopTarget(position) : RootBatch.getTarget(position, strategy);
+            if(held >= target || ItemCounts.freeSlots() == 0)
+            {
+                slots.reset();
+                chopping.reset();
+                gate.reset();
                 return true;
+            }
+
+            int tick = game().getTickCount();
+            if(!game().isIdle())
+            {
+                chopping.started(tick);
+                // Time between roots while chopping without a break sizes the next batch
+                if(roots.isSet() && held > roots.get() && lastRoot.isSet())
+                {
+                    ActionTiming.recordCadence(Activity.CHOP, (tick - lastRoot.get()) / (held - roots.get()));
+                }
+                if(!roots.isSet() || held != roots.get())
+                {
+                    lastRoot.set(tick);
+                }
+                roots.set(held);
+                return false;
+            }
+            slots.reset();
 
-            if(PlayerEx.getLocal().isIdle())
+            int remaining = chopping.remaining(tick);
+            if(remaining > 0)
             {
-                TileObjectEx tree = TileObjectAPI.search()
-                        .withName("Bruma roots")
-                        .nearest();
-                ClickManagerUtil.queueClickBox(tree);
-                TileObjectAPI.interact(tree, "Chop");
+                gate.wakeIn(remaining);
+                return false;
             }
+
+            game().interactObject(ObjectID.WINT_ROOTS, position, "Chop");
+            chopping.issued(tick);
+            gate.wakeIn(chopping.remaining(tick));
             return false;
-        });
+        }));
         return this;
     }
 
-    private WinterTodtBuilder fletch(Position position)
+    /**
+     * Fletches every root held.
+     * @param position The position being played.
+     * @param toBrazier Whether to fletch on the way to the brazier, stopping early if the
+     *                  kindling could not all be fed before the round ends, rather than
+     *                  fletching everything where the player stands.
+     * @return This builder.
+     */
+    private WinterTodtBuilder fletch(Position position, boolean toBrazier)
     {
-        add(context -> {
-            MovementAPI.walkToWorldPoint(position.getBrazier());
-            context.put("last_tick", 0);
-            context.put("fxp", SkillAPI.getExperience(Skill.FLETCHING));
+        StepSlots slots = slots();
+        StepSlots.Int fxp = slots.newInt();
+        RetryTimer fletching = timer(Activity.FLETCH);
+        add(() -> {
+            TickMetrics.enter("fletch");
+            if(toBrazier)
+                walkToward(position.getBrazier());
+            slots.reset();
+            fletching.reset();
+            fxp.set(game().getExperience(Skill.FLETCHING));
         });
-        addDelayUntil(context -> {
-            if(!InventoryAPI.contains(ItemID.WINT_BRUMA_ROOT))
+        SignalGate gate = gate(Signal.INVENTORY, Signal.XP, Signal.PLAYER, Signal.HIT);
+        addDelayUntil(() -> {
+            if(!gate.changed())
+                return false;
+
+            if(ItemCounts.inventory(ItemID.WINT_BRUMA_ROOT) == 0 || (toBrazier && Planner.shouldFeedRaw(position)))
             {
-                context.remove("last_tick");
-                context.remove("fxp");
+                slots.reset();
+                fletching.reset();
+                gate.reset();
                 return true;
             }
 
-            if(!MovementAPI.isMoving() && !PlayerEx.getLocal().getWorldPoint().equals(position.getBrazier()))
-                MovementAPI.walkToWorldPoint(position.getBrazier());
+            if(toBrazier && !game().isMoving() && !game().getPlayerLocation().equals(position.getBrazier()))
+                walkToward(position.getBrazier());
 
-            int lastFxp = context.get("fxp");
-            int currentFxp = SkillAPI.getExperience(Skill.FLETCHING);
-
-            if(currentFxp > lastFxp)
+            int tick = game().getTickCount();
+            int currentFxp = game().getExperience(Skill.FLETCHING);
+            if(currentFxp > fxp.get())
             {
-                context.put("last_tick", GameManager.getTickCount());
-                context.put("fxp", currentFxp);
-                return false;
+                fxp.set(currentFxp);
+                fletching.progressed(tick);
             }
 
-            if(GameManager.getTickCount() - (int) context.get("last_tick") < 4)
+            int remaining = fletching.remaining(tick);
+            if(remaining > 0)
             {
+                gate.wakeIn(remaining);
                 return false;
             }
 
-            context.put("last_tick", GameManager.getTickCount());
-            ItemEx knife = InventoryAPI.getItem(ItemID.KNIFE);
-            ItemEx root = InventoryAPI.getItem(ItemID.WINT_BRUMA_ROOT);
-            ClickManagerUtil.queueClickBox(LayoutView.SIDE_MENU.getWidget());
-            InventoryAPI.useOn(knife, root);
+            game().useItemOn(ItemID.KNIFE, ItemID.WINT_BRUMA_ROOT);
+            fletching.issued(tick);
+            gate.wakeIn(fletching.remaining(tick));
             return false;
         });
         return this;
@@ -231,126 +447,204 @@ public class WinterTodtBuilder extends AbstractHandlerBuilder<WinterTodtBuilder>
 
     private WinterTodtBuilder prep(Position position)
     {
-        add("start", context -> {
-            if(!InventoryAPI.contains(ItemID.TINDERBOX))
-            {
-                return jump("tinderbox", context);
-            }
-            if(!InventoryAPI.contains(ItemID.KNIFE))
-            {
-                return jump("knife", context);
-            }
-            if(!InventoryAPI.contains(ItemID.HAMMER))
-            {
-                return jump("hammer", context);
-            }
-            if(InventoryAPI.getItem(" axe") == null)
+        SupplyRoute route = new SupplyRoute(position);
+        onReset(route::reset);
+        StepSlots mixSlots = slots();
+        StepSlots.Int herbCount = mixSlots.newInt();
+        RetryTimer mixTimer = timer(Activity.MIX);
+        SignalGate visits = gate(Signal.INVENTORY, Signal.PLAYER, Signal.SCENE);
+        addDelayUntil(named("supplies", () -> {
+            if(!visits.changed())
+                return false;
+
+            Supply next = route.next(game().getPlayerLocation());
+            if(next == null)
             {
-                return jump("axe", context);
-            }
-            if(InventoryAPI.count(WinterAPI.rejuvenationPotionIds) < 2)
-                return jump("pots", context);
-            return jump("end", context);
-        });
-        add("tinderbox", context -> {
-            if(InventoryAPI.contains(ItemID.TINDERBOX))
-                return jump("start", context);
-            TileObjectEx crate = TileObjectAPI.search()
-                    .withId(ObjectID.WINT_CHEST_TINDERBOX)
-                    .nearest();
-            ClickManagerUtil.queueClickBox(crate);
-            TileObjectAPI.interact(crate, 0);
-            return jump("start", context);
-        });
-        add("knife", context -> {
-            if(InventoryAPI.contains(ItemID.KNIFE))
-                return jump("start", context);
-            TileObjectEx crate = TileObjectAPI.search()
-                    .withId(ObjectID.WINT_CHEST_KNIFE)
-                    .nearest();
-            ClickManagerUtil.queueClickBox(crate);
-            TileObjectAPI.interact(crate, 0);
-            return jump("start", context);
-        });
-        add("hammer", context -> {
-            if(InventoryAPI.contains(ItemID.HAMMER))
-                return jump("start", context);
-            TileObjectEx crate = TileObjectAPI.search()
-                    .withId(ObjectID.WINT_CHEST_HAMMER)
-                    .nearest();
-            ClickManagerUtil.queueClickBox(crate);
-            TileObjectAPI.interact(crate, 0);
-            return jump("start", context);
-        });
-        add("axe", context -> {
-            if(InventoryAPI.contains(ItemID.BRONZE_AXE))
-                return jump("start", context);
-            TileObjectEx crate = TileObjectAPI.search()
-                    .withId(ObjectID.WINT_CHEST_AXE)
-                    .nearest();
-            ClickManagerUtil.queueClickBox(crate);
-            TileObjectAPI.interact(crate, 0);
-            return jump("start", context);
-        });
-        addDelayUntil("pots", () -> {
-            if(InventoryAPI.count(ItemID.WINT_VIAL) >= 5)
+                visits.reset();
                 return true;
-            TileObjectEx crate = TileObjectAPI.search()
-                    .withId(ObjectID.WINT_CHEST_VIAL)
-                    .nearest();
-            ClickManagerUtil.queueClickBox(crate);
-            TileObjectAPI.interact(crate, 1);
+            }
+
+            // Mix on the way to the remaining crates once the vials and herbs are held
+            int wait = route.canMix() ? mix(herbCount, mixTimer) : 2;
+            if(!game().isMoving() && (next != Supply.HERBS || game().isIdle()))
+                game().interactObject(next.getObjectId(), position, next.getAction());
+            visits.wakeIn(Math.min(2, wait));
             return false;
-        });
-        walkTo(position.getHerbRoots());
-        add(() -> {
-            TileObjectEx roots = TileObjectAPI.search()
-                    .withId(ObjectID.WINT_HERB_ROOTS)
-                    .nearest();
-            ClickManagerUtil.queueClickBox(roots);
-            TileObjectAPI.interact(roots, 0);
-        });
-        addDelayUntil(() -> InventoryAPI.count(ItemID.WINT_HERB) >= 5);
-        addDelayUntil("end", () -> {
-            boolean atBrazier = PlayerEx.getLocal().getWorldPoint().equals(position.getBrazier());
+        }));
+        SignalGate mixing = gate(Signal.INVENTORY, Signal.PLAYER, Signal.HIT);
+        addDelayUntil(named("end", () -> {
+            if(!mixing.changed())
+                return false;
+
+            boolean atBrazier = game().getPlayerLocation().equals(position.getBrazier());
 
-            if (!atBrazier && !MovementAPI.isMoving())
-                MovementAPI.walkToWorldPoint(position.getBrazier());
+            if (!atBrazier && !game().isMoving())
+                walkToward(position.getBrazier());
 
-            if (!InventoryAPI.contains(ItemID.WINT_HERB))
+            if (!route.canMix())
+            {
+                if(atBrazier)
+                {
+                    mixSlots.reset();
+                    mixTimer.reset();
+                    mixing.reset();
+                }
                 return atBrazier;
+            }
 
-            ClickManagerUtil.queueClickBox(LayoutView.SIDE_MENU.getWidget());
-            InventoryAPI.useOn(
-                    InventoryAPI.getItem(ItemID.WINT_HERB),
-                    InventoryAPI.getItem(ItemID.WINT_VIAL)
-            );
+            mixing.wakeIn(mix(herbCount, mixTimer));
             return false;
-        });
-        addDelayUntil(() -> !MovementAPI.isMoving());
+        }));
+        SignalGate arrived = gate(() -> !game().isMoving(), Signal.PLAYER);
+        addDelayUntil(arrived::test);
         return this;
     }
 
+    /**
+     * Uses a herb on a vial unless the last one is still being mixed.
+     * @param herbCount The herbs held when last checked.
+     * @param timer The mixing retry timer.
+     * @return The ticks until mixing should be checked again.
+     */
+    private static int mix(StepSlots.Int herbCount, RetryTimer timer)
+    {
+        int tick = game().getTickCount();
+        int herbsHeld = ItemCounts.inventory(ItemID.WINT_HERB);
+        if(herbCount.isSet() && herbsHeld < herbCount.get())
+            timer.progressed(tick);
+        herbCount.set(herbsHeld);
+
+        int remaining = timer.remaining(tick);
+        if(remaining > 0)
+            return remaining;
+
+        game().useItemOn(ItemID.WINT_HERB, ItemID.WINT_VIAL);
+        timer.issued(tick);
+        return timer.remaining(tick);
+    }
+
     private WinterTodtBuilder bank()
     {
-        BankBuilder builder = BankBuilder.get()
-                .open()
-                .depositInventory()
-                .add(context -> {
-                    int bestAxe = WinterAPI.decideBestAxe();
-                    BankAPI.withdraw(bestAxe, 1, false);
-                    speedUp(context);
-                })
-                .withdraw(
-                        false,
-                        BankBuilder.BankItem.of(
-                                ItemID.KNIFE, 1,
-                                ItemID.TINDERBOX, 1,
-                                ItemID.HAMMER, 1
-                        )
-                );
-        walkTo(WinterAPI.BANK);
-        append(builder);
+        StepTable.Label loadout = label("loadout");
+        StepTable.Label banked = label("banked");
+        branch(loadout, () -> {
+            TickMetrics.enter("loadout");
+            return Loadout.wintertodt().isHeld() ? banked.getIndex() : loadout.getIndex() + 1;
+        });
+        travel("walkBank", WinterAPI.BANK);
+        nest(LibrarySteps.bank());
+        mark(banked);
         return this;
     }
-}
+
+    /**
+     * Creates a gate that is cleared whenever the built handler is reset.
+     * @param condition The condition, or null for a gate checked through {@link SignalGate#changed()}.
+     * @param signals The signals the condition reads.
+     * @return The gate.
+     */
+    private SignalGate gate(BooleanSupplier condition, Signal... signals)
+    {
+        SignalGate gate = new SignalGate(condition, signals);
+        onReset(gate::reset);
+        return gate;
+    }
+
+    /**
+     * Creates a gate checked through {@link SignalGate#changed()} that is cleared whenever
+     * the built handler is reset.
+     * @param signals The signals the step reads.
+     * @return The gate.
+     */
+    private SignalGate gate(Signal... signals)
+    {
+        return gate(null, signals);
+    }
+
+    /**
+     * Creates step slots that are cleared whenever the built handler is reset.
+     * @return The slots.
+     */
+    private StepSlots slots()
+    {
+        StepSlots slots = new StepSlots();
+        onReset(slots::reset);
+        return slots;
+    }
+
+    /**
+     * Creates a retry timer that is cleared whenever the built handler is reset.
+     * @param activity The action.
+     * @return The timer.
+     */
+    private RetryTimer timer(Activity activity)
+    {
+        RetryTimer timer = new RetryTimer(activity);
+        onReset(timer::reset);
+        return timer;
+    }
+
+    /**
+     * Wraps a step condition so it reports itself to {@link TickMetrics} whenever it runs.
+     * @param name The step name.
+     * @param condition The step condition.
+     * @return The wrapped condition.
+     */
+    private static BooleanSupplier named(String name, BooleanSupplier condition)
+    {
+        return () -> {
+            TickMetrics.enter(name);
+            return condition.getAsBoolean();
+        };
+    }
+
+    private static WinterGame game()
+    {
+        return WinterAPI.getGame();
+    }
+
+    /**
+     * Library steps with no {@link WinterGame} equivalent, built as StepHandlers and
+     * nested into a table as a single step.
+     */
+    private static class LibrarySteps extends AbstractHandlerBuilder<LibrarySteps>
+    {
+        /**
+         * Builds a trip with the global walker.
+         * @param destination The destination tile.
+         * @return The walking StepHandler.
+         */
+        private static StepHandler trip(WorldPoint destination)
+        {
+            return new LibrarySteps()
+                    .walkTo(destination)
+                    .build();
+        }
+
+        /**
+         * Builds the bank visit that deposits what the {@link Loadout} does not want and
+         * withdraws what it is missing.
+         * @return The banking StepHandler.
+         */
+        private static StepHandler bank()
+        {
+            LibrarySteps steps = new LibrarySteps();
+            BankBuilder builder = BankBuilder.get()
+                    .open()
+                    .add(context -> {
+                        TickMetrics.enter("bank");
+                        Loadout loadout = Loadout.wintertodt();
+                        for(int id : loadout.getDeposits())
+                        {
+                            BankAPI.depositAll(id);
+                        }
+                        for(Map.Entry<Integer, Integer> withdrawal : loadout.getWithdrawals().entrySet())
+                        {
+                            BankAPI.withdraw(withdrawal.getKey(), withdrawal.getValue(), false);
+                        }
+                        steps.speedUp(context);
+                    });
+            return steps.append(builder).build();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.tonic.vitawintertodt.data;
+
+/**
+ * The kinds of game action the plugin issues through {@link com.tonic.vitawintertodt.api.WinterGame}.
+ */
+public enum Action
+{
+    /**
+     * No action was issued.
+     */
+    NONE,
+
+    /**
+     * Walking to a tile, the target is the tile's x and the option its y.
+     */
+    WALK,
+
+    /**
+     * Interacting with a scene object, the target is the object id.
+     */
+    OBJECT,
+
+    /**
+     * Interacting with an inventory item, the target is the item id.
+     */
+    ITEM,
+
+    /**
+     * Using one inventory item on another, the target is the item used and the option the item used on.
+     */
+    USE_ON
+}
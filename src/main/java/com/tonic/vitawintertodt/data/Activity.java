@@ -0,0 +1,29 @@
+package com.tonic.vitawintertodt.data;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The repeated skilling actions whose response times are learned by
+ * {@link com.tonic.vitawintertodt.api.ActionTiming}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Activity
+{
+    FEED(4, 2),
+    FLETCH(4, 3),
+    CHOP(2, 3),
+    MIX(2, 2)
+    ;
+
+    /**
+     * The ticks to wait before retrying until enough timings have been observed.
+     */
+    private final int defaultDelay;
+
+    /**
+     * The typical ticks between two responses, used until enough timings have been observed.
+     */
+    private final int defaultCadence;
+}
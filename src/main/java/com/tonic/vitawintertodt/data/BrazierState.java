@@ -1,8 +1,7 @@
 package com.tonic.vitawintertodt.data;
 
-import com.tonic.api.entities.TileObjectAPI;
-import com.tonic.data.wrappers.TileObjectEx;
-import com.tonic.util.ClickManagerUtil;
+import com.tonic.vitawintertodt.api.SceneIndex;
+import com.tonic.vitawintertodt.api.WinterAPI;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import net.runelite.api.gameval.ObjectID;
@@ -24,51 +23,37 @@ public enum BrazierState
     private final String name;
     private final String option;
 
-    /**
-     * Get the brazier tile object.
-     * @return The brazier tile object.
-     */
-    public TileObjectEx get()
-    {
-        return TileObjectAPI.search()
-                .withAction(option)
-                .sortNearest()
-                .first();
-    }
-
     /**
      * Interact with the brazier.
+     * @param position The position whose brazier to interact with.
      */
-    public void interact()
+    public void interact(Position position)
     {
-        TileObjectEx brazier = get();
-        if(brazier == null)
-        {
-            return;
-        }
-        ClickManagerUtil.queueClickBox(brazier);
-        TileObjectAPI.interact(brazier, option);
+        WinterAPI.getGame().interactObject(id, position, option);
     }
 
     /**
      * Get the current brazier state.
+     * @param position The position whose brazier to check.
      * @return The brazier state.
      */
-    public static BrazierState getState()
+    public static BrazierState getState(Position position)
     {
-        String option = TileObjectAPI.search()
-                .withNames(UNLIT.getName(), LIT.getName(), DESTROYED.getName())
-                .sortNearest()
-                .first()
-                .getActions()[0];
-
+        BrazierState nearest = NONE;
+        int nearestDistance = Integer.MAX_VALUE;
         for (BrazierState state : values())
         {
-            if (state.getOption().equals(option))
+            if (state == NONE)
+            {
+                continue;
+            }
+            int distance = SceneIndex.distance(state.getId(), position);
+            if (distance < nearestDistance)
             {
-                return state;
+                nearest = state;
+                nearestDistance = distance;
             }
         }
-        return NONE;
+        return nearest;
     }
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package com.tonic.vitawintertodt.data;
 
+import com.tonic.vitawintertodt.api.PositionStats;
+import com.tonic.vitawintertodt.api.WinterAPI;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import net.runelite.api.coords.WorldPoint;
 
+import java.util.Random;
+
 /**
  * Represents the possible positions in the Wintertodt minigame.
  */
@@ -20,6 +24,16 @@ public enum Position
             new WorldPoint(1622, 3996, 0),
             new WorldPoint(1622, 3988, 0),
             new WorldPoint(1611, 4006, 0)
+    ),
+    NORTH_EAST(
+            new WorldPoint(1638, 4013, 0),
+            new WorldPoint(1638, 4024, 0),
+            new WorldPoint(1649, 4006, 0)
+    ),
+    NORTH_WEST(
+            new WorldPoint(1622, 4013, 0),
+            new WorldPoint(1622, 4024, 0),
+            new WorldPoint(1611, 4006, 0)
     )
     ;
 
@@ -28,14 +42,24 @@ public enum Position
     private final WorldPoint herbRoots;
 
     /**
-     * Selects a new position based on the given position with a bias
-     * towards staying in the same position.
+     * Selects a new position by Thompson sampling the points per minute recorded in
+     * {@link PositionStats}. Until a position has been played, falls back to a random
+     * pick with a bias towards staying in the same position.
      * @param position The current position, or null to select randomly.
      * @return The newly selected position.
      */
     public static Position selectNew(Position position) {
-        return position == null
-                ? (Math.random() < 0.5 ? EAST : WEST)
-                : (Math.random() < 0.8 ? position : (position == EAST ? WEST : EAST));
+        // One draw from the game seeds the sampling so replays select the same way
+        double roll = WinterAPI.getGame().random();
+        Position best = PositionStats.select(new Random(Double.doubleToLongBits(roll)));
+        if(best != null)
+            return best;
+        Position[] positions = values();
+        if(position == null)
+            return positions[(int) (roll * positions.length)];
+        if(roll < 0.8)
+            return position;
+        int offset = 1 + (int) ((roll - 0.8) / 0.2 * (positions.length - 1));
+        return positions[(position.ordinal() + offset) % positions.length];
     }
 }
@@ -0,0 +1,45 @@
+package com.tonic.vitawintertodt.data;
+
+/**
+ * The game inputs a step condition can depend on. Each one is marked changed
+ * by the event that updates it, see {@link com.tonic.vitawintertodt.api.Signals}.
+ */
+public enum Signal
+{
+    /**
+     * Inventory contents, from ItemContainerChanged.
+     */
+    INVENTORY,
+
+    /**
+     * Respawn timer, warmth and boss energy, from VarbitChanged and the status widgets.
+     */
+    STATUS,
+
+    /**
+     * Skill experience, from StatChanged.
+     */
+    XP,
+
+    /**
+     * Indexed scene objects, from GameObjectSpawned and GameObjectDespawned.
+     */
+    SCENE,
+
+    /**
+     * The local player's animation, interaction and tile, from AnimationChanged,
+     * InteractingChanged and per tick movement checks.
+     */
+    PLAYER,
+
+    /**
+     * The local player taking damage, which cancels whatever they were doing, from HitsplatApplied.
+     */
+    HIT,
+
+    /**
+     * The local player's action ending, their animation resetting or their interaction
+     * being cleared, from AnimationChanged and InteractingChanged.
+     */
+    STOPPED
+}
@@ -1,58 +1,101 @@
 package com.tonic.vitawintertodt.data;
 
-import com.tonic.util.handler.StepHandler;
+import com.tonic.vitawintertodt.api.StepTable;
 import com.tonic.vitawintertodt.api.WinterTodtBuilder;
-import lombok.Getter;
 
-import java.util.function.Function;
+import java.util.function.BiFunction;
 
 /**
  * Represents the different states of the Wintertodt activity.
+ * <p>
+ * Each state builds its handler on first use once for every position and strategy it
+ * depends on, and keeps it. START depends on neither and is built once, PREP once per
+ * position and GAME once per position and strategy. Starting a new run selects the cached handler and resets it in place, so
+ * round transitions take constant time and allocate nothing once every pair in play
+ * has been built.
  */
 public enum State {
     /**
      * Initial state where the player starts the Wintertodt activity.
      */
-    START(p -> WinterTodtBuilder.generateStart()),
+    START(false, false, (p, s) -> WinterTodtBuilder.generateStart()),
 
     /**
      * Preparation state where the player readies themselves for the next round.
      */
-    PREP(WinterTodtBuilder::generateSetup),
+    PREP(true, false, (p, s) -> WinterTodtBuilder.generateSetup(p)),
 
     /**
      * Active gameplay state where the player engages with the Wintertodt skilling boss.
      */
-    GAME(WinterTodtBuilder::generateGameplay);
+    GAME(true, true, (p, s) -> s.generate(p));
 
-    private final Function<Position, StepHandler> supplier;
-    @Getter
-    private StepHandler handler;
+    private final boolean byPosition;
+    private final boolean byStrategy;
+    private final BiFunction<Position, Strategy, StepTable> supplier;
+    private final StepTable[][] handlers;
+    private Position position;
+    private Strategy strategy;
+    private StepTable handler;
 
-    State(Function<Position, StepHandler> supplier) {
+    State(boolean byPosition, boolean byStrategy, BiFunction<Position, Strategy, StepTable> supplier) {
+        this.byPosition = byPosition;
+        this.byStrategy = byStrategy;
         this.supplier = supplier;
+        handlers = new StepTable[byPosition ? Position.values().length : 1][byStrategy ? Strategy.values().length : 1];
     }
 
     /**
-     * Initializes a new run for the given position by creating a new StepHandler.
+     * Initializes a new run for the given position. The handler is selected and reset
+     * when it is first needed.
      *
      * @param position The current position in the Wintertodt activity.
+     * @param strategy The strategy the gameplay handler optimises for.
      */
-    private void newRun(Position position)
+    private void newRun(Position position, Strategy strategy)
     {
-        handler = supplier.apply(position);
+        this.position = position;
+        this.strategy = strategy;
+        handler = null;
     }
 
     /**
-     * Recalculates the StepHandlers for all states based on the supplied position.
+     * Gets the step table of the current run, building it the first time the position
+     * and strategy it depends on are played.
+     *
+     * @return The step table.
+     */
+    public StepTable getHandler()
+    {
+        if(handler == null)
+        {
+            StepTable[] cached = handlers[byPosition ? position.ordinal() : 0];
+            int slot = byStrategy ? strategy.ordinal() : 0;
+            handler = cached[slot];
+            if(handler == null)
+            {
+                handler = supplier.apply(position, strategy);
+                cached[slot] = handler;
+            }
+            else
+            {
+                handler.reset();
+            }
+        }
+        return handler;
+    }
+
+    /**
+     * Starts a new run of every state's step table for the supplied position.
      *
      * @param position The current position in the Wintertodt activity.
+     * @param strategy The strategy the gameplay handler optimises for.
      */
-    public static void recalc(Position position)
+    public static void recalc(Position position, Strategy strategy)
     {
         for(State state : values())
         {
-            state.newRun(position);
+            state.newRun(position, strategy);
         }
     }
 
@@ -74,7 +117,7 @@ public enum State {
     }
 
     /**
-     * Resets the StepHandler for the current state.
+     * Resets the step table for the current state.
      */
     public void reset()
     {
@@ -0,0 +1,69 @@
+package com.tonic.vitawintertodt.data;
+
+import com.tonic.vitawintertodt.api.StepTable;
+import com.tonic.vitawintertodt.api.WinterTodtBuilder;
+import lombok.Getter;
+import net.runelite.api.Skill;
+
+import java.util.function.Function;
+
+/**
+ * The objectives the gameplay loop can optimise for. Each one builds its own
+ * {@link State#GAME} handler and is measured by its own hourly rate.
+ */
+public enum Strategy
+{
+    /**
+     * Chops, fletches every root and feeds the kindling for the most points per round.
+     */
+    POINTS("Points", "points/h", null, WinterTodtBuilder::generateGameplay),
+
+    /**
+     * Chops and feeds the roots raw, skipping the fletching ticks for the most firemaking xp.
+     */
+    FIREMAKING("Firemaking xp", "fm xp/h", Skill.FIREMAKING, WinterTodtBuilder::generateFiremaking),
+
+    /**
+     * Chops as many roots as can still be fletched before the round ends, up to a full
+     * inventory, and fletches them at the tree before feeding, for the most fletching xp.
+     */
+    FLETCHING("Fletching xp", "fletch xp/h", Skill.FLETCHING, WinterTodtBuilder::generateFletching);
+
+    @Getter
+    private final String displayName;
+    @Getter
+    private final String rateName;
+
+    /**
+     * The skill whose experience is the strategy's objective, or null for points.
+     */
+    @Getter
+    private final Skill skill;
+
+    private final Function<Position, StepTable> gameplay;
+
+    Strategy(String displayName, String rateName, Skill skill, Function<Position, StepTable> gameplay)
+    {
+        this.displayName = displayName;
+        this.rateName = rateName;
+        this.skill = skill;
+        this.gameplay = gameplay;
+    }
+
+    /**
+     * Builds the gameplay handler for the given position.
+     *
+     * @param position The position to play.
+     * @return The gameplay handler.
+     */
+    public StepTable generate(Position position)
+    {
+        return gameplay.apply(position);
+    }
+
+    @Override
+    public String toString()
+    {
+        return displayName;
+    }
+}
@@ -0,0 +1,29 @@
+package com.tonic.vitawintertodt.data;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.runelite.api.gameval.ObjectID;
+
+/**
+ * The supplies collected inside the arena before a round, each taken from one object.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Supply
+{
+    TINDERBOX(ObjectID.WINT_CHEST_TINDERBOX, 0, 1),
+    KNIFE(ObjectID.WINT_CHEST_KNIFE, 0, 1),
+    HAMMER(ObjectID.WINT_CHEST_HAMMER, 0, 1),
+    AXE(ObjectID.WINT_CHEST_AXE, 0, 1),
+    VIALS(ObjectID.WINT_CHEST_VIAL, 1, 1),
+    HERBS(ObjectID.WINT_HERB_ROOTS, 0, 2)
+    ;
+
+    private final int objectId;
+    private final int action;
+
+    /**
+     * The ticks spent at the object for each item taken.
+     */
+    private final int ticksPerItem;
+}
@@ -0,0 +1,15 @@
+package com.tonic.vitawintertodt.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One dispatch of the plugin's game tick handler.
+ */
+@Name("com.tonic.vitawintertodt.GameTick")
+@Label("Wintertodt Game Tick")
+@Description("One dispatch of the Wintertodt plugin's game tick handler")
+public class GameTickEvent extends WinterEvent
+{
+}
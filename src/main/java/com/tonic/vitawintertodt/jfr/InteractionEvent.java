@@ -0,0 +1,23 @@
+package com.tonic.vitawintertodt.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A game action issued by the plugin.
+ */
+@Name("com.tonic.vitawintertodt.Interaction")
+@Label("Wintertodt Interaction")
+@Description("A game action issued by the Wintertodt plugin")
+public class InteractionEvent extends WinterEvent
+{
+    @Label("Action")
+    String action;
+
+    @Label("Target")
+    int target;
+
+    @Label("Option")
+    String option;
+}
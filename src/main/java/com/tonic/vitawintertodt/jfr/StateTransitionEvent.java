@@ -0,0 +1,17 @@
+package com.tonic.vitawintertodt.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The session moving from one state to another.
+ */
+@Name("com.tonic.vitawintertodt.StateTransition")
+@Label("Wintertodt State Transition")
+@Description("The Wintertodt session changing state, the state field holds the new state")
+public class StateTransitionEvent extends WinterEvent
+{
+    @Label("Previous State")
+    String previous;
+}
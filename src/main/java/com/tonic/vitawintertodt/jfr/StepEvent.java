@@ -0,0 +1,15 @@
+package com.tonic.vitawintertodt.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The time between a handler entering a named step and leaving it, which may span many ticks.
+ */
+@Name("com.tonic.vitawintertodt.Step")
+@Label("Wintertodt Step")
+@Description("Time spent in one named step of a Wintertodt handler")
+public class StepEvent extends WinterEvent
+{
+}
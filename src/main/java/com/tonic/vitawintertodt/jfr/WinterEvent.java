@@ -0,0 +1,23 @@
+package com.tonic.vitawintertodt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the plugin's flight recorder events, carrying where in the round the event happened.
+ */
+@Category("VitaWintertodt")
+@StackTrace(false)
+public abstract class WinterEvent extends Event
+{
+    @Label("State")
+    String state;
+
+    @Label("Step")
+    String step;
+
+    @Label("Position")
+    String position;
+}
@@ -0,0 +1,171 @@
+package com.tonic.vitawintertodt.jfr;
+
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.State;
+import jdk.jfr.EventType;
+
+/**
+ * Emits the plugin's flight recorder events. Keeps the state, position and step the
+ * events are tagged with, so callers that do not know them, like the game actions,
+ * can still be placed in the round.
+ * <p>
+ * Events are only allocated when their {@link EventType} is enabled, which is false
+ * unless a recording is running with them on, and only filled in when
+ * {@link jdk.jfr.Event#shouldCommit()} holds.
+ */
+public class WinterFlight
+{
+    private static final EventType TICK = EventType.getEventType(GameTickEvent.class);
+    private static final EventType INTERACTION = EventType.getEventType(InteractionEvent.class);
+    private static final EventType TRANSITION = EventType.getEventType(StateTransitionEvent.class);
+    private static final EventType STEP = EventType.getEventType(StepEvent.class);
+
+    private static String state;
+    private static String position;
+    private static String step;
+    private static StepEvent stepEvent;
+
+    /**
+     * Starts timing a game tick dispatch.
+     *
+     * @return The event to pass to {@link #commit(WinterEvent)} once the tick is done,
+     * or null if it is not being recorded.
+     */
+    public static GameTickEvent beginTick()
+    {
+        if(!TICK.isEnabled())
+        {
+            return null;
+        }
+        GameTickEvent event = new GameTickEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Starts timing a game action.
+     *
+     * @param action The kind of action, e.g. "object" or "useOn".
+     * @param target The object or item id acted on.
+     * @param option The menu option, or null if not known.
+     * @return The event to pass to {@link #commit(WinterEvent)} once the action is issued,
+     * or null if it is not being recorded.
+     */
+    public static InteractionEvent beginInteraction(String action, int target, String option)
+    {
+        if(!INTERACTION.isEnabled())
+        {
+            return null;
+        }
+        InteractionEvent event = new InteractionEvent();
+        event.begin();
+        if(event.isEnabled())
+        {
+            event.action = action;
+            event.target = target;
+            event.option = option;
+        }
+        return event;
+    }
+
+    /**
+     * Starts timing a game action whose option is a menu index or second item id.
+     *
+     * @param action The kind of action, e.g. "item" or "useOn".
+     * @param target The object or item id acted on.
+     * @param option The menu option index or the id of the item used on.
+     * @return The event to pass to {@link #commit(WinterEvent)} once the action is issued,
+     * or null if it is not being recorded.
+     */
+    public static InteractionEvent beginInteraction(String action, int target, int option)
+    {
+        if(!INTERACTION.isEnabled())
+        {
+            return null;
+        }
+        InteractionEvent event = new InteractionEvent();
+        event.begin();
+        if(event.isEnabled())
+        {
+            event.action = action;
+            event.target = target;
+            event.option = Integer.toString(option);
+        }
+        return event;
+    }
+
+    /**
+     * Ends a timed event, tags it with the current context and commits it if it is being recorded.
+     *
+     * @param event The event, or null if it is not being recorded.
+     */
+    public static void commit(WinterEvent event)
+    {
+        if(event == null)
+        {
+            return;
+        }
+        event.end();
+        if(event.shouldCommit())
+        {
+            tag(event);
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the session changing state and updates the context.
+     *
+     * @param previous The previous state, or null.
+     * @param next The new state, or null.
+     * @param nextPosition The position of the new state, or null.
+     */
+    public static void transition(State previous, State next, Position nextPosition)
+    {
+        state = next == null ? null : next.name();
+        position = nextPosition == null ? null : nextPosition.name();
+        if(previous == next || !TRANSITION.isEnabled())
+        {
+            return;
+        }
+
+        StateTransitionEvent event = new StateTransitionEvent();
+        if(event.shouldCommit())
+        {
+            tag(event);
+            event.previous = previous == null ? null : previous.name();
+            event.commit();
+        }
+    }
+
+    /**
+     * Ends the step event of the previous step, if any, and starts one for the given step.
+     *
+     * @param name The step entered, or null if the handler left its last step.
+     */
+    public static void step(String name)
+    {
+        if(stepEvent != null)
+        {
+            commit(stepEvent);
+            stepEvent = null;
+        }
+        step = name;
+        if(name != null && STEP.isEnabled())
+        {
+            StepEvent event = new StepEvent();
+            if(event.isEnabled())
+            {
+                event.begin();
+                stepEvent = event;
+            }
+        }
+    }
+
+    private static void tag(WinterEvent event)
+    {
+        event.state = state;
+        event.position = position;
+        event.step = step;
+    }
+}
@@ -0,0 +1,183 @@
+package com.tonic.vitawintertodt.sim;
+
+import com.tonic.vitawintertodt.WinterSession;
+import com.tonic.vitawintertodt.api.ActionGovernor;
+import com.tonic.vitawintertodt.api.ItemCounts;
+import com.tonic.vitawintertodt.api.JournalReader;
+import com.tonic.vitawintertodt.api.LatencyHistogram;
+import com.tonic.vitawintertodt.api.PathCache;
+import com.tonic.vitawintertodt.api.PositionStats;
+import com.tonic.vitawintertodt.api.RecordingGame;
+import com.tonic.vitawintertodt.api.SceneIndex;
+import com.tonic.vitawintertodt.api.Signals;
+import com.tonic.vitawintertodt.api.TickMetrics;
+import com.tonic.vitawintertodt.api.WinterAPI;
+import com.tonic.vitawintertodt.api.WinterStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+
+/**
+ * Feeds a recorded session journal back through the real handlers and reports where
+ * the replayed decisions diverge from the recorded ones, along with the recorded and
+ * replayed dispatch latencies.
+ * <p>
+ * Usage: {@code ./gradlew replay -Pargs="--journal=path/to/journal.wtj --verbose"}
+ * <p>
+ * Walking distances come from the collision store saved next to the journals, or the
+ * one given with {@code --collision=}, so the replayed walks match the recorded ones.
+ * <p>
+ * The session resumes in the state and position of the first record, with the learned
+ * state snapshot in the journal's header restored. Records are taken after each tick's
+ * dispatch, so the first replayed tick may differ.
+ */
+public class Replay
+{
+    public static void main(String[] args) throws IOException
+    {
+        Path file = null;
+        Path collision = null;
+        boolean verbose = false;
+        for(String arg : args)
+        {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            switch(pair[0])
+            {
+                case "journal":
+                    file = Paths.get(pair[1]);
+                    break;
+                case "collision":
+                    collision = Paths.get(pair[1]);
+                    break;
+                case "verbose":
+                    verbose = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if(file == null)
+        {
+            throw new IllegalArgumentException("Missing --journal=<file>");
+        }
+        if(collision == null)
+        {
+            collision = file.resolveSibling("collision.dat");
+        }
+        if(Files.exists(collision))
+        {
+            PathCache.load(collision);
+        }
+
+        try(JournalReader reader = JournalReader.open(file))
+        {
+            System.out.println(run(reader, verbose));
+        }
+    }
+
+    /**
+     * Replays every record of a journal.
+     *
+     * @param reader The journal.
+     * @param verbose Whether to print every divergent tick.
+     * @return The replay summary.
+     * @throws IOException If the journal's learned state cannot be read.
+     */
+    public static String run(JournalReader reader, boolean verbose) throws IOException
+    {
+        SceneIndex.clear();
+        // The fixed objects are not journaled, only the braziers that change
+        SimulatedWintertodt.spawnScenery();
+        ItemCounts.clear();
+        WinterStatus.clear();
+        PositionStats.reset();
+        ReplayGame replay = new ReplayGame(reader);
+        RecordingGame game = new RecordingGame(new ActionGovernor(replay));
+        WinterAPI.setGame(game);
+        WinterSession session = new WinterSession();
+        session.reset();
+
+        LatencyHistogram recorded = new LatencyHistogram();
+        LatencyHistogram replayed = new LatencyHistogram();
+        int stateDivergences = 0;
+        int actionDivergences = 0;
+        int firstDivergence = -1;
+        int slowest = -1;
+        long slowestNanos = -1;
+
+        for(int i = 0; i < reader.size(); i++)
+        {
+            replay.load(i);
+            if(i == 0)
+            {
+                reader.restoreLearned();
+            }
+            if(session.getState() == null)
+            {
+                if(reader.getState() == null)
+                {
+                    continue;
+                }
+                WinterAPI.setStrategy(reader.getStrategy());
+                session.resume(reader.getState(), reader.getPosition());
+            }
+
+            game.clearActions();
+            Signals.onTick();
+            long start = System.nanoTime();
+            session.tick(true);
+            replayed.record(System.nanoTime() - start);
+
+            reader.seek(i);
+            recorded.record(reader.getDispatchNanos());
+            if(reader.getDispatchNanos() > slowestNanos)
+            {
+                slowest = i;
+                slowestNanos = reader.getDispatchNanos();
+            }
+
+            boolean stateDiverged = session.getState() != reader.getState();
+            boolean actionDiverged = game.getAction() != reader.getAction()
+                    || game.getTarget() != reader.getTarget()
+                    || game.getOption() != reader.getOption()
+                    || !Objects.equals(game.getOptionName(), reader.getOptionName());
+            if(stateDiverged)
+            {
+                stateDivergences++;
+            }
+            if(actionDiverged)
+            {
+                actionDivergences++;
+            }
+            if((stateDiverged || actionDiverged) && firstDivergence < 0)
+            {
+                firstDivergence = i;
+            }
+            if(verbose && (stateDiverged || actionDiverged))
+            {
+                System.out.printf("#%d tick %d: recorded %s/%s %s %d %d %s, replayed %s/%s %s %d %d %s%n",
+                        i, reader.getTick(),
+                        reader.getState(), reader.getStep(), reader.getAction(), reader.getTarget(), reader.getOption(), reader.getOptionName(),
+                        session.getState(), TickMetrics.getStep(), game.getAction(), game.getTarget(), game.getOption(), game.getOptionName());
+            }
+        }
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("records=%d state divergences=%d action divergences=%d first divergence=%s%n",
+                reader.size(), stateDivergences, actionDivergences, firstDivergence < 0 ? "none" : "#" + firstDivergence));
+        summary.append(String.format("recorded dispatch p50=%dns p99=%dns max=%dns%n",
+                recorded.getPercentile(50), recorded.getPercentile(99), recorded.getMax()));
+        summary.append(String.format("replayed dispatch p50=%dns p99=%dns max=%dns",
+                replayed.getPercentile(50), replayed.getPercentile(99), replayed.getMax()));
+        if(slowest >= 0)
+        {
+            reader.seek(slowest);
+            summary.append(String.format("%nslowest recorded tick #%d tick %d in %s/%s took %dns",
+                    slowest, reader.getTick(), reader.getState(), reader.getStep(), slowestNanos));
+        }
+        return summary.toString();
+    }
+}
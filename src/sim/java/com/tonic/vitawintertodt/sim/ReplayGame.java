@@ -0,0 +1,227 @@
+package com.tonic.vitawintertodt.sim;
+
+import com.tonic.vitawintertodt.api.ItemCounts;
+import com.tonic.vitawintertodt.api.JournalReader;
+import com.tonic.vitawintertodt.api.SceneIndex;
+import com.tonic.vitawintertodt.api.Signals;
+import com.tonic.vitawintertodt.api.WinterGame;
+import com.tonic.vitawintertodt.api.WinterStatus;
+import com.tonic.vitawintertodt.data.BrazierState;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Signal;
+import net.runelite.api.Item;
+import net.runelite.api.Skill;
+import net.runelite.api.TileObject;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.gameval.InventoryID;
+import net.runelite.api.gameval.VarbitID;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * {@link WinterGame} that plays back the inputs of a recorded journal. Each call to
+ * {@link #load(int)} publishes one record into the caches and marks the signals that were
+ * marked when it was recorded. Actions issued against it are ignored and random numbers
+ * are the ones drawn when it was recorded.
+ */
+public class ReplayGame implements WinterGame
+{
+    private static final Position[] POSITIONS = Position.values();
+    private static final int[] ITEMS = JournalReader.getItems();
+    private static final Signal[] SIGNALS = Signal.values();
+
+    /**
+     * The id published in the slots held by unrecorded items, one the handlers never look at.
+     */
+    private static final int FILLER = 0;
+
+    private final JournalReader reader;
+    private final Random random = new Random(0);
+    private final BrazierState[] braziers = new BrazierState[POSITIONS.length];
+    private final TileObject[] brazierObjects = new TileObject[POSITIONS.length];
+    private final int[] counts = new int[ITEMS.length + 2];
+    private final int[] experience = new int[Skill.values().length];
+    private WorldPoint location;
+    private boolean moving;
+    private boolean idle;
+    private int warmth = Integer.MIN_VALUE;
+    private int energy = Integer.MIN_VALUE;
+
+    /**
+     * Creates a replay over the given journal.
+     *
+     * @param reader The journal.
+     */
+    public ReplayGame(JournalReader reader)
+    {
+        this.reader = reader;
+        Arrays.fill(counts, -1);
+    }
+
+    /**
+     * Selects a record and publishes its inputs.
+     *
+     * @param index The record index.
+     */
+    public void load(int index)
+    {
+        reader.seek(index);
+
+        for(Position position : POSITIONS)
+        {
+            BrazierState state = reader.getBrazier(position);
+            if(state == braziers[position.ordinal()])
+            {
+                continue;
+            }
+            braziers[position.ordinal()] = state;
+            if(brazierObjects[position.ordinal()] != null)
+            {
+                SceneIndex.onDespawned(brazierObjects[position.ordinal()]);
+                brazierObjects[position.ordinal()] = null;
+            }
+            if(state != BrazierState.NONE)
+            {
+                brazierObjects[position.ordinal()] = SimulatedWintertodt.object(state.getId(), position.getBrazier().dy(2));
+                SceneIndex.onSpawned(brazierObjects[position.ordinal()]);
+            }
+        }
+
+        publishInventory();
+
+        if(reader.getWarmth() != warmth || reader.getEnergy() != energy)
+        {
+            warmth = reader.getWarmth();
+            energy = reader.getEnergy();
+            WinterStatus.onWidgetText(
+                    warmth == Integer.MAX_VALUE ? null : "Your warmth: " + warmth + "%",
+                    energy < 0 ? null : "Wintertodt's Energy: " + energy + "%"
+            );
+        }
+        WinterStatus.onVarbitChanged(VarbitID.WINT_TRANSMIT_RESPAWNDELAY, reader.getRespawnDelay());
+
+        for(Skill skill : Skill.values())
+        {
+            experience[skill.ordinal()] = reader.getExperience(skill);
+        }
+        location = reader.getLocation();
+        moving = reader.isMoving();
+        idle = reader.isIdle();
+
+        for(Signal signal : SIGNALS)
+        {
+            if(reader.isMarked(signal))
+            {
+                Signals.mark(signal);
+            }
+        }
+    }
+
+    private void publishInventory()
+    {
+        boolean changed = false;
+        for(int i = 0; i < ITEMS.length; i++)
+        {
+            int count = reader.getCount(ITEMS[i]);
+            changed |= count != counts[i];
+            counts[i] = count;
+        }
+        changed |= reader.getAxe() != counts[ITEMS.length];
+        counts[ITEMS.length] = reader.getAxe();
+        changed |= reader.getFreeSlots() != counts[ITEMS.length + 1];
+        counts[ITEMS.length + 1] = reader.getFreeSlots();
+        if(!changed)
+        {
+            return;
+        }
+
+        // One slot per item so the free slot count matches the recording
+        Item[] items = new Item[ItemCounts.INVENTORY_SIZE];
+        int slot = 0;
+        for(int i = 0; i < ITEMS.length; i++)
+        {
+            for(int n = 0; n < counts[i] && slot < items.length; n++)
+            {
+                items[slot++] = new Item(ITEMS[i], 1);
+            }
+        }
+        while(slot < items.length - reader.getFreeSlots())
+        {
+            items[slot++] = new Item(FILLER, 1);
+        }
+        ItemCounts.onItemsChanged(InventoryID.INV, items);
+        // The journal does not say whether the axe was held or wielded, the free slots
+        // already account for a held one
+        ItemCounts.onItemsChanged(InventoryID.WORN, reader.getAxe() < 0 ? null : new Item[] {new Item(reader.getAxe(), 1)});
+    }
+
+    @Override
+    public int getTickCount()
+    {
+        return reader.getTick();
+    }
+
+    @Override
+    public int getExperience(Skill skill)
+    {
+        return experience[skill.ordinal()];
+    }
+
+    @Override
+    public int getLevel(Skill skill)
+    {
+        return 99;
+    }
+
+    @Override
+    public WorldPoint getPlayerLocation()
+    {
+        return location;
+    }
+
+    @Override
+    public boolean isIdle()
+    {
+        return idle;
+    }
+
+    @Override
+    public boolean isMoving()
+    {
+        return moving;
+    }
+
+    @Override
+    public void walkTo(WorldPoint destination)
+    {
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, String action)
+    {
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, int action)
+    {
+    }
+
+    @Override
+    public boolean interactItem(int itemId, int action)
+    {
+        return true;
+    }
+
+    @Override
+    public void useItemOn(int itemId, int targetId)
+    {
+    }
+
+    @Override
+    public double random()
+    {
+        double recorded = reader.getRandom();
+        return Double.isNaN(recorded) ? random.nextDouble() : recorded;
+    }
+}
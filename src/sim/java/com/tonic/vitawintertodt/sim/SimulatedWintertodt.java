@@ -0,0 +1,782 @@
+package com.tonic.vitawintertodt.sim;
+
+import com.tonic.vitawintertodt.api.ItemCounts;
+import com.tonic.vitawintertodt.api.SceneIndex;
+import com.tonic.vitawintertodt.api.Signals;
+import com.tonic.vitawintertodt.api.WinterAPI;
+import com.tonic.vitawintertodt.api.WinterGame;
+import com.tonic.vitawintertodt.api.WinterStatus;
+import com.tonic.vitawintertodt.data.BrazierState;
+import com.tonic.vitawintertodt.data.Position;
+import com.tonic.vitawintertodt.data.Signal;
+import lombok.Getter;
+import net.runelite.api.GameObject;
+import net.runelite.api.Item;
+import net.runelite.api.Skill;
+import net.runelite.api.TileObject;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.gameval.InventoryID;
+import net.runelite.api.gameval.ItemID;
+import net.runelite.api.gameval.ObjectID;
+import net.runelite.api.gameval.VarbitID;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A pure Java model of the Wintertodt minigame implementing {@link WinterGame}.
+ * Every tick it advances the world and publishes the result into the same caches the
+ * plugin's event handlers feed, so the real handlers run against it unmodified.
+ * <p>
+ * The model is deliberately coarse: braziers break and get repaired at random, the
+ * boss loses energy to a configurable population plus our own points, snowfall
+ * interrupts whatever the player is doing and warmth drains while in the arena.
+ */
+public class SimulatedWintertodt implements WinterGame
+{
+    static final int RESPAWN_TICKS = 50;
+    private static final int INVENTORY_SIZE = 28;
+    private static final int ARENA_SOUTH_Y = 3984;
+    private static final int[] CRATES = {
+            ObjectID.WINT_CHEST_TINDERBOX,
+            ObjectID.WINT_CHEST_KNIFE,
+            ObjectID.WINT_CHEST_HAMMER,
+            ObjectID.WINT_CHEST_AXE,
+            ObjectID.WINT_CHEST_VIAL
+    };
+    private static final int[] CRATE_ITEMS = {
+            ItemID.TINDERBOX,
+            ItemID.KNIFE,
+            ItemID.HAMMER,
+            ItemID.BRONZE_AXE,
+            ItemID.WINT_VIAL
+    };
+    private static final WorldPoint[] CRATE_TILES = {
+            new WorldPoint(1626, 3983, 0),
+            new WorldPoint(1627, 3983, 0),
+            new WorldPoint(1634, 3983, 0),
+            new WorldPoint(1635, 3983, 0),
+            new WorldPoint(1631, 3986, 0)
+    };
+    private static final Position[] POSITIONS = Position.values();
+
+    /**
+     * What the simulated player is currently doing.
+     */
+    enum Activity
+    {
+        IDLE,
+        CHOP,
+        FLETCH,
+        FEED,
+        LIGHT,
+        FIX,
+        PICK,
+        MIX
+    }
+
+    private final Random random;
+    private final int population;
+    @Getter
+    private final SimulationReport report;
+
+    @Getter
+    private int tick;
+    private int timer = RESPAWN_TICKS;
+    private double energy = 100;
+    private int warmth = 100;
+    private int roundPoints;
+
+    private final BrazierState[] braziers = new BrazierState[POSITIONS.length];
+    private final TileObject[] brazierObjects = new TileObject[POSITIONS.length];
+
+    private WorldPoint location = WinterAPI.WAITING_AREA;
+    private WorldPoint destination;
+    private Activity activity = Activity.IDLE;
+    private int activityTicks;
+    private Position activityPosition;
+    private int pendingObject = -1;
+    private Position pendingPosition;
+    private WorldPoint pendingTile;
+
+    private final Item[] inventory = new Item[INVENTORY_SIZE];
+    private final int[] experience = new int[Skill.values().length];
+    private final int[] levels = new int[Skill.values().length];
+
+    private int publishedWarmth = Integer.MIN_VALUE;
+    private int publishedEnergy = Integer.MIN_VALUE;
+
+    /**
+     * Creates a simulated world.
+     *
+     * @param seed The random seed, runs with the same seed are identical.
+     * @param population The number of other players contributing to each round.
+     */
+    public SimulatedWintertodt(long seed, int population)
+    {
+        this.random = new Random(seed);
+        this.population = population;
+        this.report = new SimulationReport(seed);
+        Arrays.fill(levels, 60);
+        Arrays.fill(experience, 273_742);
+    }
+
+    /**
+     * Installs this world as the game and publishes its initial state into the caches.
+     * The player starts in the waiting area carrying a knife, tinderbox, hammer and axe.
+     */
+    public void install()
+    {
+        WinterAPI.setGame(this);
+        SceneIndex.clear();
+        ItemCounts.clear();
+        WinterStatus.clear();
+
+        for(Position position : POSITIONS)
+        {
+            setBrazier(position, BrazierState.UNLIT);
+        }
+        spawnScenery();
+
+        add(ItemID.KNIFE);
+        add(ItemID.TINDERBOX);
+        add(ItemID.HAMMER);
+        add(ItemID.RUNE_AXE);
+        publishInventory();
+        publishStatus();
+    }
+
+    /**
+     * Advances the world by one tick. Handler actions issued since the previous
+     * call take effect here.
+     */
+    public void tick()
+    {
+        tick++;
+        boolean inGame = timer == 0;
+
+        move();
+        work();
+        if(inGame)
+        {
+            events();
+        }
+        else if(--timer == 0)
+        {
+            startRound();
+        }
+
+        boolean idle = activity == Activity.IDLE && destination == null && inArena();
+        report.tick(inGame, idle);
+        publishStatus();
+    }
+
+    @Override
+    public int getTickCount()
+    {
+        return tick;
+    }
+
+    @Override
+    public int getExperience(Skill skill)
+    {
+        return experience[skill.ordinal()];
+    }
+
+    @Override
+    public int getLevel(Skill skill)
+    {
+        return levels[skill.ordinal()];
+    }
+
+    @Override
+    public WorldPoint getPlayerLocation()
+    {
+        return location;
+    }
+
+    @Override
+    public boolean isIdle()
+    {
+        return activity == Activity.IDLE && destination == null;
+    }
+
+    @Override
+    public boolean isMoving()
+    {
+        return destination != null;
+    }
+
+    @Override
+    public void walkTo(WorldPoint tile)
+    {
+        report.action(tile.equals(destination) && pendingObject == -1);
+        destination = tile.equals(location) ? null : tile;
+        pendingObject = -1;
+        if(activity != Activity.FLETCH && activity != Activity.MIX)
+        {
+            setActivity(Activity.IDLE, null);
+        }
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, String action)
+    {
+        interactObject(objectId, position, 0);
+    }
+
+    @Override
+    public void interactObject(int objectId, Position position, int action)
+    {
+        WorldPoint tile = objectTile(objectId, position);
+        if(tile == null || (pendingObject == objectId && pendingPosition == position))
+        {
+            report.action(true);
+            return;
+        }
+        Activity target = activityFor(objectId);
+        boolean wasted = target != null && target == activity && activityPosition == position;
+        report.action(wasted);
+        if(wasted)
+        {
+            return;
+        }
+        pendingObject = objectId;
+        pendingPosition = position;
+        pendingTile = tile;
+        destination = tile;
+        if(activity != Activity.FLETCH && activity != Activity.MIX)
+        {
+            setActivity(Activity.IDLE, null);
+        }
+    }
+
+    @Override
+    public boolean interactItem(int itemId, int action)
+    {
+        int dose = potionDose(itemId);
+        if(dose == 0 || !remove(itemId))
+        {
+            report.action(true);
+            return true;
+        }
+        report.action(false);
+        if(dose > 1)
+        {
+            add(WinterAPI.rejuvenationPotionIds[dose - 2]);
+        }
+        warmth = Math.min(100, warmth + 25);
+        publishInventory();
+        return true;
+    }
+
+    @Override
+    public void useItemOn(int itemId, int targetId)
+    {
+        Activity target = null;
+        if(itemId == ItemID.KNIFE && targetId == ItemID.WINT_BRUMA_ROOT)
+        {
+            target = Activity.FLETCH;
+        }
+        else if(itemId == ItemID.WINT_HERB && targetId == ItemID.WINT_VIAL)
+        {
+            target = Activity.MIX;
+        }
+        boolean wasted = target == null || target == activity || count(itemId) == 0 || count(targetId) == 0;
+        report.action(wasted);
+        if(!wasted)
+        {
+            setActivity(target, null);
+        }
+    }
+
+    @Override
+    public double random()
+    {
+        return random.nextDouble();
+    }
+
+    private void move()
+    {
+        if(destination == null)
+        {
+            return;
+        }
+        for(int step = 0; step < 2; step++)
+        {
+            if(pendingObject != -1 && location.distanceTo(pendingTile) <= 1)
+            {
+                arrive();
+                return;
+            }
+            if(location.equals(destination))
+            {
+                destination = null;
+                Signals.mark(Signal.PLAYER);
+                return;
+            }
+            location = new WorldPoint(
+                    location.getX() + Integer.signum(destination.getX() - location.getX()),
+                    location.getY() + Integer.signum(destination.getY() - location.getY()),
+                    location.getPlane()
+            );
+            Signals.mark(Signal.PLAYER);
+        }
+    }
+
+    private void arrive()
+    {
+        int objectId = pendingObject;
+        Position position = pendingPosition;
+        destination = null;
+        pendingObject = -1;
+        Signals.mark(Signal.PLAYER);
+
+        for(int i = 0; i < CRATES.length; i++)
+        {
+            if(CRATES[i] == objectId)
+            {
+                if(free() > 0)
+                {
+                    add(CRATE_ITEMS[i]);
+                    publishInventory();
+                }
+                return;
+            }
+        }
+        Activity target = activityFor(objectId);
+        if(target == Activity.LIGHT && count(ItemID.TINDERBOX) == 0
+                || target == Activity.FIX && count(ItemID.HAMMER) == 0
+                || target == Activity.CHOP && !WinterAPI.hasAxe())
+        {
+            return;
+        }
+        setActivity(target, position);
+    }
+
+    private void work()
+    {
+        if(activity == Activity.IDLE)
+        {
+            return;
+        }
+        activityTicks++;
+        switch(activity)
+        {
+            case CHOP:
+                if(free() == 0 || timer != 0)
+                {
+                    setActivity(Activity.IDLE, null);
+                }
+                else if(random.nextInt(3) == 0)
+                {
+                    add(ItemID.WINT_BRUMA_ROOT);
+                    xp(Skill.WOODCUTTING, 21);
+                    publishInventory();
+                }
+                break;
+            case FLETCH:
+                if(count(ItemID.WINT_BRUMA_ROOT) == 0 || count(ItemID.KNIFE) == 0)
+                {
+                    setActivity(Activity.IDLE, null);
+                }
+                else if(activityTicks % 3 == 0)
+                {
+                    remove(ItemID.WINT_BRUMA_ROOT);
+                    add(ItemID.WINT_BRUMA_KINDLING);
+                    xp(Skill.FLETCHING, 36);
+                    publishInventory();
+                }
+                break;
+            case FEED:
+                if(braziers[activityPosition.ordinal()] != BrazierState.LIT || timer != 0)
+                {
+                    setActivity(Activity.IDLE, null);
+                }
+                else if(activityTicks % 2 == 0)
+                {
+                    if(remove(ItemID.WINT_BRUMA_KINDLING))
+                    {
+                        score(25);
+                        xp(Skill.FIREMAKING, 228);
+                    }
+                    else if(remove(ItemID.WINT_BRUMA_ROOT))
+                    {
+                        score(10);
+                        xp(Skill.FIREMAKING, 180);
+                    }
+                    else
+                    {
+                        setActivity(Activity.IDLE, null);
+                        break;
+                    }
+                    publishInventory();
+                }
+                break;
+            case LIGHT:
+            case FIX:
+                BrazierState required = activity == Activity.LIGHT ? BrazierState.UNLIT : BrazierState.DESTROYED;
+                if(braziers[activityPosition.ordinal()] != required)
+                {
+                    setActivity(Activity.IDLE, null);
+                }
+                else if(activityTicks >= 2)
+                {
+                    setBrazier(activityPosition, activity == Activity.LIGHT ? BrazierState.LIT : BrazierState.UNLIT);
+                    if(timer == 0)
+                    {
+                        score(25);
+                    }
+                    xp(activity == Activity.LIGHT ? Skill.FIREMAKING : Skill.CONSTRUCTION, 360);
+                    setActivity(Activity.IDLE, null);
+                }
+                break;
+            case PICK:
+                if(free() == 0)
+                {
+                    setActivity(Activity.IDLE, null);
+                }
+                else if(activityTicks % 2 == 0)
+                {
+                    add(ItemID.WINT_HERB);
+                    publishInventory();
+                }
+                break;
+            case MIX:
+                if(count(ItemID.WINT_HERB) == 0 || count(ItemID.WINT_VIAL) == 0)
+                {
+                    setActivity(Activity.IDLE, null);
+                }
+                else if(activityTicks % 2 == 0)
+                {
+                    remove(ItemID.WINT_HERB);
+                    remove(ItemID.WINT_VIAL);
+                    add(ItemID.WINT_POTION4);
+                    publishInventory();
+                }
+                break;
+        }
+    }
+
+    private void events()
+    {
+        energy -= population * 0.01;
+        if(energy <= 0)
+        {
+            endRound();
+            return;
+        }
+
+        for(Position position : POSITIONS)
+        {
+            BrazierState state = braziers[position.ordinal()];
+            if(state == BrazierState.LIT && random.nextInt(250) == 0)
+            {
+                setBrazier(position, BrazierState.DESTROYED);
+                if(activityPosition == position && location.distanceTo(position.getBrazier()) <= 2)
+                {
+                    damage(10);
+                }
+            }
+            else if(state != BrazierState.LIT && random.nextInt(400) < population)
+            {
+                setBrazier(position, state == BrazierState.DESTROYED ? BrazierState.UNLIT : BrazierState.LIT);
+            }
+        }
+
+        if(inArena())
+        {
+            if(tick % 5 == 0)
+            {
+                warmth--;
+            }
+            if(activity != Activity.IDLE && random.nextInt(120) == 0)
+            {
+                damage(8);
+            }
+            if(warmth <= 0)
+            {
+                report.death();
+                clearBruma();
+                roundPoints = 0;
+                warmth = 100;
+                location = WinterAPI.WAITING_AREA;
+                destination = null;
+                pendingObject = -1;
+                setActivity(Activity.IDLE, null);
+            }
+        }
+    }
+
+    private void damage(int amount)
+    {
+        warmth -= amount;
+        Signals.mark(Signal.HIT);
+        if(activity != Activity.IDLE)
+        {
+            report.interruption();
+            setActivity(Activity.IDLE, null);
+        }
+    }
+
+    private void startRound()
+    {
+        energy = 100;
+        roundPoints = 0;
+        for(Position position : POSITIONS)
+        {
+            setBrazier(position, BrazierState.UNLIT);
+        }
+        WinterStatus.onVarbitChanged(VarbitID.WINT_TRANSMIT_RESPAWNDELAY, 0);
+    }
+
+    private void endRound()
+    {
+        energy = 0;
+        report.round(roundPoints, count(ItemID.WINT_BRUMA_ROOT) + count(ItemID.WINT_BRUMA_KINDLING));
+        timer = RESPAWN_TICKS;
+        clearBruma();
+        if(activity != Activity.PICK && activity != Activity.MIX)
+        {
+            setActivity(Activity.IDLE, null);
+        }
+        WinterStatus.onVarbitChanged(VarbitID.WINT_TRANSMIT_RESPAWNDELAY, timer);
+    }
+
+    private void clearBruma()
+    {
+        while(remove(ItemID.WINT_BRUMA_ROOT));
+        while(remove(ItemID.WINT_BRUMA_KINDLING));
+        publishInventory();
+    }
+
+    private void score(int points)
+    {
+        roundPoints += points;
+        energy -= points * 0.01;
+    }
+
+    private void xp(Skill skill, int amount)
+    {
+        experience[skill.ordinal()] += amount;
+        Signals.mark(Signal.XP);
+    }
+
+    private void setActivity(Activity next, Position position)
+    {
+        if(activity != next || activityPosition != position)
+        {
+            if(next == Activity.IDLE)
+            {
+                Signals.mark(Signal.STOPPED);
+            }
+            activity = next;
+            activityPosition = position;
+            activityTicks = 0;
+            Signals.mark(Signal.PLAYER);
+        }
+    }
+
+    private boolean inArena()
+    {
+        return location.getY() >= ARENA_SOUTH_Y;
+    }
+
+    private void setBrazier(Position position, BrazierState state)
+    {
+        TileObject previous = brazierObjects[position.ordinal()];
+        if(previous != null)
+        {
+            SceneIndex.onDespawned(previous);
+        }
+        TileObject next = object(state.getId(), position.getBrazier().dy(2));
+        braziers[position.ordinal()] = state;
+        brazierObjects[position.ordinal()] = next;
+        SceneIndex.onSpawned(next);
+    }
+
+    private WorldPoint objectTile(int objectId, Position position)
+    {
+        if(objectId == ObjectID.WINT_ROOTS)
+        {
+            return position.getTree();
+        }
+        if(objectId == ObjectID.WINT_HERB_ROOTS)
+        {
+            return position.getHerbRoots();
+        }
+        for(int i = 0; i < CRATES.length; i++)
+        {
+            if(CRATES[i] == objectId)
+            {
+                return CRATE_TILES[i];
+            }
+        }
+        BrazierState state = braziers[position.ordinal()];
+        return state.getId() == objectId ? position.getBrazier().dy(2) : null;
+    }
+
+    private static Activity activityFor(int objectId)
+    {
+        switch(objectId)
+        {
+            case ObjectID.WINT_ROOTS:
+                return Activity.CHOP;
+            case ObjectID.WINT_HERB_ROOTS:
+                return Activity.PICK;
+            case ObjectID.WINT_BRAZIER_LIT:
+                return Activity.FEED;
+            case ObjectID.WINT_BRAZIER:
+                return Activity.LIGHT;
+            case ObjectID.WINT_BRAZIER_BROKEN:
+                return Activity.FIX;
+        }
+        return null;
+    }
+
+    private static int potionDose(int itemId)
+    {
+        int[] potions = WinterAPI.rejuvenationPotionIds;
+        for(int i = 0; i < potions.length; i++)
+        {
+            if(potions[i] == itemId)
+            {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private int count(int itemId)
+    {
+        int count = 0;
+        for(Item item : inventory)
+        {
+            if(item != null && item.getId() == itemId)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int free()
+    {
+        int free = 0;
+        for(Item item : inventory)
+        {
+            if(item == null)
+            {
+                free++;
+            }
+        }
+        return free;
+    }
+
+    private void add(int itemId)
+    {
+        for(int i = 0; i < inventory.length; i++)
+        {
+            if(inventory[i] == null)
+            {
+                inventory[i] = new Item(itemId, 1);
+                return;
+            }
+        }
+    }
+
+    private boolean remove(int itemId)
+    {
+        for(int i = 0; i < inventory.length; i++)
+        {
+            if(inventory[i] != null && inventory[i].getId() == itemId)
+            {
+                inventory[i] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void publishInventory()
+    {
+        ItemCounts.onItemsChanged(InventoryID.INV, inventory);
+    }
+
+    private void publishStatus()
+    {
+        int energyPercent = (int) Math.ceil(Math.max(0, energy));
+        if(warmth != publishedWarmth || energyPercent != publishedEnergy)
+        {
+            publishedWarmth = warmth;
+            publishedEnergy = energyPercent;
+            WinterStatus.onWidgetText("Your warmth: " + warmth + "%", "Wintertodt's Energy: " + energyPercent + "%");
+        }
+        if(timer > 0)
+        {
+            WinterStatus.onVarbitChanged(VarbitID.WINT_TRANSMIT_RESPAWNDELAY, timer);
+        }
+    }
+
+    /**
+     * Publishes the arena's fixed objects into the scene index: the roots, the herb
+     * roots and the supply crates.
+     */
+    static void spawnScenery()
+    {
+        Set<WorldPoint> herbRoots = new HashSet<>();
+        for(Position position : POSITIONS)
+        {
+            SceneIndex.onSpawned(object(ObjectID.WINT_ROOTS, position.getTree()));
+            // The northern braziers share the herb roots of the southern ones
+            if(herbRoots.add(position.getHerbRoots()))
+            {
+                SceneIndex.onSpawned(object(ObjectID.WINT_HERB_ROOTS, position.getHerbRoots()));
+            }
+        }
+        for(int i = 0; i < CRATES.length; i++)
+        {
+            SceneIndex.onSpawned(object(CRATES[i], CRATE_TILES[i]));
+        }
+    }
+
+    /**
+     * Creates a scene object stand-in exposing only its id and location, which is
+     * all the scene index reads.
+     */
+    static TileObject object(int id, WorldPoint location)
+    {
+        return (TileObject) Proxy.newProxyInstance(
+                SimulatedWintertodt.class.getClassLoader(),
+                new Class<?>[]{GameObject.class},
+                (proxy, method, args) -> {
+                    switch(method.getName())
+                    {
+                        case "getId":
+                            return id;
+                        case "getWorldLocation":
+                            return location;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "SimObject[" + id + " @ " + location + "]";
+                    }
+                    Class<?> type = method.getReturnType();
+                    if(type == boolean.class)
+                    {
+                        return false;
+                    }
+                    if(type.isPrimitive() && type != void.class)
+                    {
+                        return type == long.class ? 0L : type == double.class ? 0.0 : type == float.class ? 0f : 0;
+                    }
+                    return null;
+                }
+        );
+    }
+}
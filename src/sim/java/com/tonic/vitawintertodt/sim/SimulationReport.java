@@ -0,0 +1,166 @@
+package com.tonic.vitawintertodt.sim;
+
+import com.tonic.vitawintertodt.api.PositionStats;
+import com.tonic.vitawintertodt.api.StrategyMetrics;
+import com.tonic.vitawintertodt.data.Strategy;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Throughput figures collected over one simulator run.
+ */
+@Getter
+public class SimulationReport
+{
+    private final long seed;
+    private int[] roundPoints = new int[16];
+    private int rounds;
+    private long ticks;
+    private long gameTicks;
+    private long idleTicks;
+    private long actions;
+    private long wastedActions;
+    private long droppedActions;
+    private long interruptions;
+    private long deaths;
+    private long leftover;
+    private long wallNanos;
+    private List<StrategyMetrics.Row> strategies = Collections.emptyList();
+    private List<PositionStats.Row> positions = Collections.emptyList();
+
+    public SimulationReport(long seed)
+    {
+        this.seed = seed;
+    }
+
+    void tick(boolean inGame, boolean idle)
+    {
+        ticks++;
+        if(inGame)
+        {
+            gameTicks++;
+            if(idle)
+            {
+                idleTicks++;
+            }
+        }
+    }
+
+    void action(boolean wasted)
+    {
+        actions++;
+        if(wasted)
+        {
+            wastedActions++;
+        }
+    }
+
+    void interruption()
+    {
+        interruptions++;
+    }
+
+    void death()
+    {
+        deaths++;
+    }
+
+    void round(int points, int unconverted)
+    {
+        leftover += unconverted;
+        if(rounds == roundPoints.length)
+        {
+            roundPoints = Arrays.copyOf(roundPoints, rounds * 2);
+        }
+        roundPoints[rounds++] = points;
+    }
+
+    void dropped(long count)
+    {
+        droppedActions = count;
+    }
+
+    void wallNanos(long nanos)
+    {
+        wallNanos = nanos;
+    }
+
+    void strategy(List<StrategyMetrics.Row> rows)
+    {
+        strategies = rows;
+    }
+
+    void positions(List<PositionStats.Row> rows)
+    {
+        positions = rows;
+    }
+
+    /**
+     * Gets the mean points scored per completed round.
+     *
+     * @return The mean, or 0 if no round completed.
+     */
+    public double getMeanPoints()
+    {
+        if(rounds == 0)
+        {
+            return 0;
+        }
+        long total = 0;
+        for(int i = 0; i < rounds; i++)
+        {
+            total += roundPoints[i];
+        }
+        return (double) total / rounds;
+    }
+
+    /**
+     * Gets the simulated ticks executed per wall clock second.
+     *
+     * @return The throughput.
+     */
+    public double getTicksPerSecond()
+    {
+        return wallNanos == 0 ? 0 : ticks * 1_000_000_000.0 / wallNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        int[] sorted = Arrays.copyOf(roundPoints, rounds);
+        Arrays.sort(sorted);
+        StringBuilder rates = new StringBuilder();
+        for(StrategyMetrics.Row row : strategies)
+        {
+            rates.append(String.format("%n%s:", row.getStrategy()));
+            for(Strategy objective : Strategy.values())
+            {
+                rates.append(String.format(" %s=%d", objective.getRateName(), row.getRate(objective)));
+            }
+        }
+        for(PositionStats.Row row : positions)
+        {
+            rates.append(String.format("%n%s: rounds=%d points/min=%.1f unlit=%.1f%% hits/min=%.2f roots/min=%.1f",
+                    row.getPosition(), row.getRounds(), row.getPointsPerMinute(), 100 * row.getLostShare(),
+                    row.getHitsPerMinute(), row.getRootsPerMinute()));
+        }
+        return String.format(
+                "seed=%d rounds=%d ticks=%d (%.0f ticks/s)%n" +
+                "points/round mean=%.1f min=%d median=%d max=%d%n" +
+                "game ticks=%d idle=%d (%.1f%%) actions=%d wasted=%d (%.1f%%) dropped=%d interruptions=%d deaths=%d%n" +
+                "bruma left at round end=%d (%.1f/round)",
+                seed, rounds, ticks, getTicksPerSecond(),
+                getMeanPoints(),
+                rounds == 0 ? 0 : sorted[0],
+                rounds == 0 ? 0 : sorted[rounds / 2],
+                rounds == 0 ? 0 : sorted[rounds - 1],
+                gameTicks, idleTicks, gameTicks == 0 ? 0 : 100.0 * idleTicks / gameTicks,
+                actions, wastedActions, actions == 0 ? 0 : 100.0 * wastedActions / actions, droppedActions,
+                interruptions, deaths,
+                leftover, rounds == 0 ? 0 : (double) leftover / rounds
+        ) + rates;
+    }
+}
@@ -0,0 +1,135 @@
+package com.tonic.vitawintertodt.sim;
+
+import com.tonic.vitawintertodt.WinterSession;
+import com.tonic.vitawintertodt.api.ActionGovernor;
+import com.tonic.vitawintertodt.api.PositionStats;
+import com.tonic.vitawintertodt.api.RecordingGame;
+import com.tonic.vitawintertodt.api.SessionJournal;
+import com.tonic.vitawintertodt.api.Signals;
+import com.tonic.vitawintertodt.api.WinterAPI;
+import com.tonic.vitawintertodt.api.StrategyMetrics;
+import com.tonic.vitawintertodt.data.State;
+import com.tonic.vitawintertodt.data.Strategy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runs the real Wintertodt state machine against {@link SimulatedWintertodt} as fast
+ * as the handlers allow and prints a throughput report.
+ * <p>
+ * Usage: {@code ./gradlew simulate -Pargs="--seed=1 --rounds=100 --population=20"}, add
+ * {@code --journal=<directory>} to record the run as a session journal for {@link Replay}
+ * and {@code --strategy=<points|firemaking|fletching>} to play another {@link Strategy}.
+ * <p>
+ * Runs start in {@link State#PREP} with the starting supplies already held, since
+ * the START handler banks through the live client's bank widgets.
+ */
+public class Simulator
+{
+    public static void main(String[] args) throws IOException
+    {
+        long seed = 1;
+        int rounds = 100;
+        int population = 20;
+        Path journal = null;
+        Strategy strategy = Strategy.POINTS;
+        for(String arg : args)
+        {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            switch(pair[0])
+            {
+                case "seed":
+                    seed = Long.parseLong(pair[1]);
+                    break;
+                case "rounds":
+                    rounds = Integer.parseInt(pair[1]);
+                    break;
+                case "population":
+                    population = Integer.parseInt(pair[1]);
+                    break;
+                case "journal":
+                    journal = Paths.get(pair[1]);
+                    break;
+                case "strategy":
+                    strategy = Strategy.valueOf(pair[1].toUpperCase());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        WinterAPI.setStrategy(strategy);
+        if(journal == null)
+        {
+            System.out.println(run(seed, rounds, population));
+            return;
+        }
+        try(SessionJournal sessionJournal = SessionJournal.create(journal, rounds * 10_000, Integer.MAX_VALUE))
+        {
+            System.out.println(run(seed, rounds, population, sessionJournal));
+        }
+    }
+
+    /**
+     * Runs a simulation until the given number of rounds have completed.
+     *
+     * @param seed The random seed.
+     * @param rounds The number of rounds to play.
+     * @param population The number of other players in each round.
+     * @return The report.
+     */
+    public static SimulationReport run(long seed, int rounds, int population)
+    {
+        return run(seed, rounds, population, null);
+    }
+
+    /**
+     * Runs a simulation until the given number of rounds have completed, recording every tick.
+     *
+     * @param seed The random seed.
+     * @param rounds The number of rounds to play.
+     * @param population The number of other players in each round.
+     * @param journal The journal to record into, or null to not record.
+     * @return The report.
+     */
+    public static SimulationReport run(long seed, int rounds, int population, SessionJournal journal)
+    {
+        SimulatedWintertodt world = new SimulatedWintertodt(seed, population);
+        world.install();
+        ActionGovernor governor = new ActionGovernor(world);
+        RecordingGame game = new RecordingGame(governor);
+        WinterAPI.setGame(game);
+
+        WinterSession session = new WinterSession();
+        session.reset();
+        session.newRound(State.PREP);
+
+        long maxTicks = (long) rounds * 10_000;
+        long start = System.nanoTime();
+        SimulationReport report = world.getReport();
+        StrategyMetrics.reset();
+        PositionStats.reset();
+        while(report.getRounds() < rounds && report.getTicks() < maxTicks)
+        {
+            game.clearActions();
+            world.tick();
+            Signals.onTick();
+            if(journal != null)
+            {
+                journal.observe(game);
+            }
+            long dispatch = System.nanoTime();
+            session.tick(true);
+            if(journal != null)
+            {
+                journal.record(session.getState(), session.getPosition(), session.getStrategy(), game, System.nanoTime() - dispatch);
+            }
+        }
+        report.dropped(governor.getDropped());
+        report.wallNanos(System.nanoTime() - start);
+        report.strategy(StrategyMetrics.snapshot());
+        report.positions(PositionStats.snapshot());
+        return report;
+    }
+}